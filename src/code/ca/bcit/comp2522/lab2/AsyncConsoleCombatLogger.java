@@ -0,0 +1,260 @@
+package ca.bcit.comp2522.lab2;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link CombatEventListener} that prints attacks to the console from a background thread.
+ * <p>
+ * Attacking threads only copy each event into a preallocated slot of a fixed-size ring buffer,
+ * which takes no lock and allocates nothing. A single daemon thread drains the ring, formats the
+ * same messages the attack methods used to print, and writes them to the output stream. When the
+ * ring is full, new events are dropped and counted rather than blocking the simulation.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class AsyncConsoleCombatLogger implements CombatEventListener, AutoCloseable
+{
+    private static final int  DEFAULT_CAPACITY = 1024;
+    private static final int  MIN_CAPACITY     = 2;
+    private static final long UNPUBLISHED      = -1L;
+    private static final long IDLE_PARK_NANOS  = 100_000L;
+
+    private final PrintStream     out;
+    private final int             mask;
+    private final Creature[]      attackers;
+    private final Creature[]      targets;
+    private final byte[]          actions;
+    private final int[]           damages;
+    private final AtomicLongArray published;
+    private final AtomicLong      claimed;
+    private final AtomicLong      consumed;
+    private final LongAdder       dropped;
+    private final Thread          drainer;
+
+    private volatile boolean running;
+
+    /**
+     * Constructs a new {@code AsyncConsoleCombatLogger} that prints to standard output
+     * through a ring buffer of the default capacity.
+     */
+    public AsyncConsoleCombatLogger()
+    {
+        this(System.out, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new {@code AsyncConsoleCombatLogger} and starts its background thread.
+     *
+     * @param out      the stream to print events to, must not be null
+     * @param capacity the number of events the ring can hold, rounded up to a power of two
+     * @throws IllegalArgumentException if the stream is null or the capacity is less than two
+     */
+    public AsyncConsoleCombatLogger(final PrintStream out,
+                                    final int capacity)
+    {
+        final int slots;
+
+        if (out == null)
+        {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+
+        if (capacity < MIN_CAPACITY)
+        {
+            throw new IllegalArgumentException("Capacity must be at least " + MIN_CAPACITY);
+        }
+
+        slots = Integer.highestOneBit(capacity - 1) << 1;
+
+        this.out  = out;
+        mask      = slots - 1;
+        attackers = new Creature[slots];
+        targets   = new Creature[slots];
+        actions   = new byte[slots];
+        damages   = new int[slots];
+        published = new AtomicLongArray(slots);
+        claimed   = new AtomicLong();
+        consumed  = new AtomicLong();
+        dropped   = new LongAdder();
+        running   = true;
+
+        for (int i = 0; i < slots; i++)
+        {
+            published.set(i, UNPUBLISHED);
+        }
+
+        drainer = new Thread(this::drain, "combat-logger");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Queues an attack to be printed.
+     *
+     * @param attacker          the attacking creature
+     * @param action            the action used
+     * @param target            the creature that was attacked
+     * @param damage            the damage dealt to the target
+     * @param remainingResource the attacker's resource after the attack
+     * @param killed            whether this attack killed the target
+     */
+    @Override
+    public void onAttack(final Creature attacker,
+                         final byte action,
+                         final Creature target,
+                         final int damage,
+                         final int remainingResource,
+                         final boolean killed)
+    {
+        long sequence;
+        int  slot;
+
+        do
+        {
+            sequence = claimed.get();
+            if (sequence - consumed.get() > mask)
+            {
+                dropped.increment();
+                return;
+            }
+        }
+        while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        slot = (int) sequence & mask;
+
+        attackers[slot] = attacker;
+        targets[slot]   = target;
+        actions[slot]   = action;
+        damages[slot]   = damage;
+
+        published.set(slot, sequence);
+    }
+
+    /**
+     * Drains the ring until the logger is closed and every published event has been printed.
+     */
+    private void drain()
+    {
+        final StringBuilder line;
+        line = new StringBuilder();
+
+        while (true)
+        {
+            final long sequence;
+            final int  slot;
+
+            sequence = consumed.get();
+            slot     = (int) sequence & mask;
+
+            if (published.get(slot) != sequence)
+            {
+                if (!running && sequence == claimed.get())
+                {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            line.setLength(0);
+            format(line, attackers[slot], actions[slot], targets[slot], damages[slot]);
+
+            // Print before publishing, so flush() never returns while this line is unprinted
+            out.print(line);
+
+            attackers[slot] = null;
+            targets[slot]   = null;
+            consumed.set(sequence + 1);
+        }
+    }
+
+    /**
+     * Formats an attack the way the attack methods print it.
+     *
+     * @param line     the buffer to append to
+     * @param attacker the attacking creature
+     * @param action   the action used
+     * @param target   the creature that was attacked
+     * @param damage   the damage dealt
+     */
+    private static void format(final StringBuilder line,
+                               final Creature attacker,
+                               final byte action,
+                               final Creature target,
+                               final int damage)
+    {
+        final String name;
+        name = attacker.getName();
+
+        if (action == CombatEngine.ACTION_BREATHE_FIRE)
+        {
+            line.append(name).append(" breathes fire on ").append(target.getName())
+                .append(" for ").append(damage).append(" damage").append(System.lineSeparator());
+        }
+        else if (action == CombatEngine.ACTION_CAST_SPELL)
+        {
+            line.append(name).append(" casts a spell on ").append(target.getName())
+                .append(" for ").append(damage).append(" damage!").append(System.lineSeparator());
+        }
+        else
+        {
+            line.append(name).append(" add rage").append(System.lineSeparator());
+            if (damage == Orc.DOUBLE_DAMAGE)
+            {
+                line.append(name).append(" goes berserk").append(System.lineSeparator());
+            }
+            line.append(name).append(" deals ").append(damage).append(" damage to ")
+                .append(target.getName()).append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Waits until every event queued so far has been printed.
+     */
+    public void flush()
+    {
+        final long target;
+        target = claimed.get();
+
+        while (consumed.get() < target && drainer.isAlive())
+        {
+            Thread.onSpinWait();
+        }
+        out.flush();
+    }
+
+    /**
+     * Gets the number of events dropped because the ring was full.
+     *
+     * @return the dropped event count
+     */
+    public long getDroppedEvents()
+    {
+        return dropped.sum();
+    }
+
+    /**
+     * Prints every queued event and stops the background thread.
+     */
+    @Override
+    public void close()
+    {
+        running = false;
+
+        try
+        {
+            drainer.join();
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,22 @@
+package ca.bcit.comp2522.lab2;
+
+/**
+ * Represents the result of an attack made through one of the exception-free attack methods,
+ * such as {@link Dragon#tryBreatheFire(Creature)}, {@link Elf#tryCastSpell(Creature)}, and
+ * {@link Orc#tryBerserk(Creature)}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public enum AttackOutcome
+{
+    /**
+     * The attack was made: the attacker's resource was spent and the target took damage.
+     */
+    SUCCESS,
+
+    /**
+     * The attacker did not have enough fire power, mana, or rage; nothing changed.
+     */
+    INSUFFICIENT_RESOURCE
+}
@@ -0,0 +1,320 @@
+package ca.bcit.comp2522.lab2;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Load-tests the combat code by driving a generated population through a battle script.
+ * <p>
+ * Usage: {@code BattleLoadTest [population] [threads] [seed] [script]}. The population is built
+ * by a {@link CreatureGenerator} from the seed, and the battle runs on a {@link BattleSimulator}
+ * with a pool of the given number of threads. The script is a comma-separated list of steps,
+ * each optionally repeated with {@code *n}:
+ * </p>
+ * <ul>
+ *     <li>{@code battle}: one round in which every living creature attacks.</li>
+ *     <li>{@code restore}: every dragon and elf restores the fire power or mana of one attack.</li>
+ *     <li>{@code heal}: every creature is healed to full health.</li>
+ * </ul>
+ * <p>
+ * The script is run once to warm up and once more, on a freshly generated copy of the same
+ * population, to measure. For each kind of step the latency percentiles are reported, along with
+ * the attack throughput of the battle rounds and the rate at which all threads allocated memory.
+ * Because generation and battle are both deterministic, the survivor count is the same on every
+ * run with the same arguments.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class BattleLoadTest
+{
+    private static final int    DEFAULT_POPULATION = 100_000;
+    private static final long   DEFAULT_SEED       = 2522L;
+    private static final String DEFAULT_SCRIPT     = "battle*20,restore,heal,battle*20";
+
+    private static final String[] STEPS   = {"battle", "restore", "heal"};
+    private static final int      BATTLE  = 0;
+    private static final int      RESTORE = 1;
+
+    private static final String REPEAT_SEPARATOR = "*";
+    private static final String STEP_SEPARATOR   = ",";
+
+    private static final int POPULATION_ARG = 0;
+    private static final int THREADS_ARG    = 1;
+    private static final int SEED_ARG       = 2;
+    private static final int SCRIPT_ARG     = 3;
+
+    private static final double[] PERCENTILES   = {50.0, 90.0, 99.0, 99.9, 100.0};
+    private static final double   PERCENT       = 100.0;
+    private static final double   NANOS_PER_MS  = 1_000_000.0;
+    private static final double   NANOS_PER_SEC = 1_000_000_000.0;
+    private static final double   BYTES_PER_MB  = 1024.0 * 1024.0;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the population size, thread count, seed, and script, each optional
+     * @throws IllegalArgumentException if an argument is malformed or the script has an unknown step
+     */
+    public static void main(final String[] args)
+    {
+        final int          population;
+        final int          threads;
+        final long         seed;
+        final int[]        script;
+        final ForkJoinPool pool;
+
+        population = args.length > POPULATION_ARG ? Integer.parseInt(args[POPULATION_ARG]) : DEFAULT_POPULATION;
+        threads    = args.length > THREADS_ARG ? Integer.parseInt(args[THREADS_ARG]) :
+                                                 Runtime.getRuntime().availableProcessors();
+        seed       = args.length > SEED_ARG ? Long.parseLong(args[SEED_ARG]) : DEFAULT_SEED;
+        script     = expand(args.length > SCRIPT_ARG ? args[SCRIPT_ARG] : DEFAULT_SCRIPT);
+        pool       = new ForkJoinPool(threads);
+
+        try
+        {
+            System.out.printf("Population %,d, %d threads, seed %d, %d steps%n",
+                              population, threads, seed, script.length);
+
+            run(population, seed, script, pool, false);
+            run(population, seed, script, pool, true);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Expands a script into one entry per step, checking that every step is known.
+     *
+     * @param text the script text
+     * @return the position in {@link #STEPS} of each step, in order
+     * @throws IllegalArgumentException if a step is unknown or its repeat count is malformed
+     */
+    private static int[] expand(final String text)
+    {
+        final String[] parts;
+        int[]          steps;
+        int            count;
+
+        parts = text.split(STEP_SEPARATOR);
+        steps = new int[parts.length];
+        count = 0;
+
+        for (final String part : parts)
+        {
+            final int separator;
+            final int step;
+            final int repeats;
+
+            separator = part.indexOf(REPEAT_SEPARATOR);
+            step      = Arrays.asList(STEPS).indexOf((separator < 0 ? part : part.substring(0, separator)).trim());
+            repeats   = separator < 0 ? 1 : Integer.parseInt(part.substring(separator + 1).trim());
+
+            if (step < 0 || repeats < 1)
+            {
+                throw new IllegalArgumentException("Unknown or empty script step \"" + part + "\"");
+            }
+
+            if (count + repeats > steps.length)
+            {
+                steps = Arrays.copyOf(steps, Math.max(steps.length * 2, count + repeats));
+            }
+            Arrays.fill(steps, count, count + repeats, step);
+            count += repeats;
+        }
+        return Arrays.copyOf(steps, count);
+    }
+
+    /**
+     * Generates the population and runs the script over it once.
+     *
+     * @param population the number of creatures
+     * @param seed       the seed for generation and battle
+     * @param script     the positions in {@link #STEPS} of the steps to run
+     * @param pool       the pool the battle runs on
+     * @param report     whether to print the results
+     */
+    private static void run(final int population,
+                            final long seed,
+                            final int[] script,
+                            final ForkJoinPool pool,
+                            final boolean report)
+    {
+        final List<Creature>  creatures;
+        final BattleSimulator simulator;
+        final long[][]        latencies;
+        final int[]           counts;
+        final long            startBytes;
+        final long            startNanos;
+        final long            elapsedNanos;
+        final long            allocatedBytes;
+        long                  attacks;
+        long                  battleNanos;
+
+        creatures = new CreatureGenerator(seed).generate(population);
+        simulator = new BattleSimulator(creatures, seed, pool);
+        latencies = new long[STEPS.length][script.length];
+        counts    = new int[STEPS.length];
+        attacks   = 0L;
+
+        battleNanos = 0L;
+        startBytes  = allocatedBytes();
+        startNanos  = System.nanoTime();
+
+        for (final int step : script)
+        {
+            final long stepStart;
+            final long stepNanos;
+
+            stepStart = System.nanoTime();
+
+            if (step == BATTLE)
+            {
+                attacks += simulator.runRound();
+            }
+            else if (step == RESTORE)
+            {
+                restore(creatures);
+            }
+            else
+            {
+                heal(creatures);
+            }
+
+            stepNanos = System.nanoTime() - stepStart;
+
+            latencies[step][counts[step]] = stepNanos;
+            counts[step]++;
+
+            if (step == BATTLE)
+            {
+                battleNanos += stepNanos;
+            }
+        }
+
+        elapsedNanos   = System.nanoTime() - startNanos;
+        allocatedBytes = allocatedBytes() - startBytes;
+
+        if (!report)
+        {
+            return;
+        }
+
+        System.out.printf("%-10s %8s", "Step", "count");
+        for (final double percentile : PERCENTILES)
+        {
+            System.out.printf(" %10s", percentile == PERCENT ? "max ms" : "p" + percentile + " ms");
+        }
+        System.out.println();
+
+        for (int kind = 0; kind < STEPS.length; kind++)
+        {
+            final long[] sorted;
+
+            if (counts[kind] == 0)
+            {
+                continue;
+            }
+
+            sorted = Arrays.copyOf(latencies[kind], counts[kind]);
+            Arrays.sort(sorted);
+
+            System.out.printf("%-10s %8d", STEPS[kind], counts[kind]);
+            for (final double percentile : PERCENTILES)
+            {
+                System.out.printf(" %10.3f", percentileOf(sorted, percentile) / NANOS_PER_MS);
+            }
+            System.out.println();
+        }
+
+        System.out.printf("Attacks: %,d in %.1f ms (%,.0f attacks/s)%n",
+                          attacks,
+                          battleNanos / NANOS_PER_MS,
+                          battleNanos == 0 ? 0.0 : attacks * NANOS_PER_SEC / battleNanos);
+        System.out.printf("Allocated: %.1f MB (%.1f MB/s, %.1f B/attack)%n",
+                          allocatedBytes / BYTES_PER_MB,
+                          allocatedBytes / BYTES_PER_MB * NANOS_PER_SEC / elapsedNanos,
+                          attacks == 0 ? 0.0 : (double) allocatedBytes / attacks);
+        System.out.printf("Survivors: %,d after %d rounds%n", simulator.countAlive(), simulator.getRound());
+    }
+
+    /**
+     * Restores the fire power or mana of one attack to every dragon and elf.
+     *
+     * @param creatures the population
+     */
+    private static void restore(final List<Creature> creatures)
+    {
+        for (final Creature creature : creatures)
+        {
+            switch (creature.getKind())
+            {
+                case DRAGON:
+                    ((Dragon) creature).restoreFirePower(Dragon.FIRE_POWER_COST);
+                    break;
+                case ELF:
+                    ((Elf) creature).restoreMana(Elf.MANA_COST);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Heals every creature to full health.
+     *
+     * @param creatures the population
+     */
+    private static void heal(final List<Creature> creatures)
+    {
+        for (final Creature creature : creatures)
+        {
+            creature.heal(Creature.MIN_HEAL_AMOUNT);
+        }
+    }
+
+    /**
+     * Finds a percentile of sorted values by the nearest-rank method.
+     *
+     * @param sorted     the values in ascending order, at least one
+     * @param percentile the percentile, between zero and one hundred
+     * @return the value at the percentile
+     */
+    private static long percentileOf(final long[] sorted,
+                                     final double percentile)
+    {
+        final int rank;
+        rank = (int) Math.ceil(percentile / PERCENT * sorted.length);
+
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Sums the bytes allocated so far by every live thread.
+     *
+     * @return the total allocated bytes
+     */
+    private static long allocatedBytes()
+    {
+        long total;
+        total = 0L;
+
+        for (final long allocated : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds()))
+        {
+            if (allocated > 0)
+            {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+}
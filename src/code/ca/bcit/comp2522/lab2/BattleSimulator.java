@@ -0,0 +1,315 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs rounds of battle over a population of creatures on a {@link ForkJoinPool}.
+ * <p>
+ * Each round has two phases, both split across the pool's threads:
+ * </p>
+ * <ol>
+ *     <li>Read phase: every living creature picks a living target. Choices are made against a
+ *         snapshot of who is alive at the start of the round, using a random stream derived
+ *         only from the seed, the round number, and the attacker's position.</li>
+ *     <li>Write phase: every creature that picked a target attacks it. An attacker only
+ *         changes its own resource, and damage to a target commutes with other damage in the
+ *         same round, so the outcome does not depend on which thread runs first.</li>
+ * </ol>
+ * <p>
+ * As a result, a battle with the same population and seed always ends the same way,
+ * regardless of the number of threads.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class BattleSimulator
+{
+    private static final int  NO_TARGET         = -1;
+    private static final int  MIN_POPULATION    = 2;
+    private static final int  MAX_RANDOM_PICKS  = 8;
+    private static final int  SPLIT_THRESHOLD   = 1024;
+    private static final long ROUND_MULTIPLIER  = 0x9E3779B97F4A7C15L;
+    private static final long INDEX_MULTIPLIER  = 0xC2B2AE3D27D4EB4FL;
+    private static final int  SURVIVORS_TO_WIN  = 1;
+
+    private final Creature[]   population;
+    private final boolean[]    aliveAtStart;
+    private final int[]        targets;
+    private final int[]        attacksMade;
+    private final long         seed;
+    private final ForkJoinPool pool;
+
+    private int round;
+
+    /**
+     * Constructs a new {@code BattleSimulator} that runs on the common fork/join pool.
+     *
+     * @param population the creatures taking part, at least two
+     * @param seed       the seed that determines every target choice
+     * @throws IllegalArgumentException if the population is null, too small, or contains null
+     */
+    public BattleSimulator(final Collection<? extends Creature> population,
+                           final long seed)
+    {
+        this(population, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new {@code BattleSimulator}.
+     *
+     * @param population the creatures taking part, at least two
+     * @param seed       the seed that determines every target choice
+     * @param pool       the pool to run both phases of each round on
+     * @throws IllegalArgumentException if the population is null, too small, or contains null,
+     *                                  or if the pool is null
+     */
+    public BattleSimulator(final Collection<? extends Creature> population,
+                           final long seed,
+                           final ForkJoinPool pool)
+    {
+        if (population == null ||
+            population.size() < MIN_POPULATION)
+        {
+            throw new IllegalArgumentException("Population must have at least " + MIN_POPULATION + " creatures");
+        }
+
+        if (pool == null)
+        {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+
+        this.population = population.toArray(new Creature[0]);
+        this.seed       = seed;
+        this.pool       = pool;
+
+        for (final Creature creature : this.population)
+        {
+            if (creature == null)
+            {
+                throw new IllegalArgumentException("Population cannot contain null creatures");
+            }
+        }
+
+        aliveAtStart = new boolean[this.population.length];
+        targets      = new int[this.population.length];
+        attacksMade  = new int[this.population.length];
+        round        = 0;
+    }
+
+    /**
+     * Runs rounds until at most one creature is left alive or the round limit is reached.
+     *
+     * @param maxRounds the maximum number of rounds to run
+     * @return the number of rounds run
+     */
+    public int run(final int maxRounds)
+    {
+        int rounds;
+        rounds = 0;
+
+        while (rounds < maxRounds &&
+               countAlive() > SURVIVORS_TO_WIN)
+        {
+            runRound();
+            rounds++;
+        }
+        return rounds;
+    }
+
+    /**
+     * Runs a single round: every living creature picks a target, then every pick is attacked.
+     *
+     * @return the number of attacks that were made
+     */
+    public int runRound()
+    {
+        int total;
+
+        forEachIndex(i -> aliveAtStart[i] = population[i].isAlive());
+        forEachIndex(this::chooseTarget);
+        forEachIndex(i -> attacksMade[i] = attack(i));
+
+        round++;
+
+        total = 0;
+        for (final int made : attacksMade)
+        {
+            total += made;
+        }
+        return total;
+    }
+
+    /**
+     * Picks the target of the creature at the given position for the current round.
+     *
+     * @param attacker the attacker's position in the population
+     */
+    private void chooseTarget(final int attacker)
+    {
+        final SplittableRandom random;
+        final int              size;
+
+        targets[attacker] = NO_TARGET;
+        if (!aliveAtStart[attacker])
+        {
+            return;
+        }
+
+        random = new SplittableRandom(seed ^ round * ROUND_MULTIPLIER ^ attacker * INDEX_MULTIPLIER);
+        size   = population.length;
+
+        for (int pick = 0; pick < MAX_RANDOM_PICKS; pick++)
+        {
+            final int candidate;
+            candidate = random.nextInt(size);
+
+            if (candidate != attacker && aliveAtStart[candidate])
+            {
+                targets[attacker] = candidate;
+                return;
+            }
+        }
+
+        for (int offset = 1; offset < size; offset++)
+        {
+            final int candidate;
+            candidate = (attacker + offset) % size;
+
+            if (aliveAtStart[candidate])
+            {
+                targets[attacker] = candidate;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Makes the attack chosen for the creature at the given position, if any.
+     *
+     * @param attacker the attacker's position in the population
+     * @return one if an attack was made, zero otherwise
+     */
+    private int attack(final int attacker)
+    {
+        final Creature      creature;
+        final Creature      target;
+        final AttackOutcome outcome;
+
+        if (targets[attacker] == NO_TARGET)
+        {
+            return 0;
+        }
+
+        creature = population[attacker];
+        target   = population[targets[attacker]];
+
+        // A switch on the kind code keeps each call site monomorphic on a final class
+        switch (creature.getKind().getCode())
+        {
+            case CreatureKind.DRAGON_CODE:
+                outcome = ((Dragon) creature).tryBreatheFire(target);
+                break;
+            case CreatureKind.ELF_CODE:
+                outcome = ((Elf) creature).tryCastSpell(target);
+                break;
+            default:
+                outcome = ((Orc) creature).tryBerserk(target);
+                break;
+        }
+
+        return outcome == AttackOutcome.SUCCESS ? 1 : 0;
+    }
+
+    /**
+     * Runs an action for every position in the population, split across the pool.
+     *
+     * @param action the action to run for each position
+     */
+    private void forEachIndex(final IntConsumer action)
+    {
+        pool.invoke(new RangeAction(action, 0, population.length));
+    }
+
+    /**
+     * Counts the creatures in the population that are alive.
+     *
+     * @return the number of living creatures
+     */
+    public int countAlive()
+    {
+        int alive;
+        alive = 0;
+
+        for (final Creature creature : population)
+        {
+            if (creature.isAlive())
+            {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * Gets the number of rounds run so far.
+     *
+     * @return the round count
+     */
+    public int getRound()
+    {
+        return round;
+    }
+
+    /**
+     * Applies an action to a range of positions, splitting the range in half until it is small
+     * enough to run on one thread.
+     */
+    private static final class RangeAction extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer action;
+        private final int         from;
+        private final int         to;
+
+        /**
+         * Constructs a new {@code RangeAction} over the positions {@code [from, to)}.
+         *
+         * @param action the action to run for each position
+         * @param from   the first position, inclusive
+         * @param to     the last position, exclusive
+         */
+        private RangeAction(final IntConsumer action,
+                            final int from,
+                            final int to)
+        {
+            this.action = action;
+            this.from   = from;
+            this.to     = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            final int middle;
+
+            if (to - from <= SPLIT_THRESHOLD)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    action.accept(i);
+                }
+                return;
+            }
+
+            middle = (from + to) >>> 1;
+            invokeAll(new RangeAction(action, from, middle),
+                      new RangeAction(action, middle, to));
+        }
+    }
+}
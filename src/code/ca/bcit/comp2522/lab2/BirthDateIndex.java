@@ -0,0 +1,370 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Indexes registered creatures by date of birth, one sorted cohort per {@link CreatureKind}, for
+ * range and oldest or youngest queries.
+ * <p>
+ * Each cohort is a sorted array of {@code long} keys holding a creature's packed date of birth
+ * in the high half and its id in the low half. Packed dates sort in calendar order, so a range
+ * of dates is a contiguous run of keys found with two binary searches, and the oldest or
+ * youngest creatures are at either end.
+ * </p>
+ * <p>
+ * Additions and removals are buffered and merged into the sorted array the next time the cohort
+ * is queried, so registering a large population costs one sort instead of one shifted insert
+ * per creature. A merged array is never changed once published, so a query works on it without
+ * holding the cohort's lock.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+final class BirthDateIndex
+{
+    private static final int  DATE_SHIFT = Integer.SIZE;
+    private static final long ID_MASK    = 0xFFFFFFFFL;
+
+    private final Cohort[] cohorts;
+
+    /**
+     * Constructs an empty {@code BirthDateIndex}.
+     */
+    BirthDateIndex()
+    {
+        cohorts = new Cohort[CreatureKind.values().length];
+
+        for (int i = 0; i < cohorts.length; i++)
+        {
+            cohorts[i] = new Cohort();
+        }
+    }
+
+    /**
+     * Adds a creature to its kind's cohort.
+     *
+     * @param creature the creature
+     * @param id       the creature's id
+     */
+    void add(final Creature creature,
+             final int id)
+    {
+        cohorts[creature.getKind().ordinal()].add(keyOf(creature.getDateOfBirth().toPackedInt(), id));
+    }
+
+    /**
+     * Removes a creature from its kind's cohort.
+     *
+     * @param creature the creature, added earlier under the same id
+     * @param id       the creature's id
+     */
+    void remove(final Creature creature,
+                final int id)
+    {
+        cohorts[creature.getKind().ordinal()].remove(keyOf(creature.getDateOfBirth().toPackedInt(), id));
+    }
+
+    /**
+     * Counts the creatures of a kind born within a range of dates.
+     *
+     * @param kind     the kind
+     * @param earliest the packed earliest date of birth, inclusive
+     * @param latest   the packed latest date of birth, inclusive
+     * @return the number of creatures
+     */
+    int countBetween(final CreatureKind kind,
+                     final int earliest,
+                     final int latest)
+    {
+        final long[] keys;
+        keys = cohorts[kind.ordinal()].keys();
+
+        return Math.max(upperBound(keys, latest) - lowerBound(keys, earliest), 0);
+    }
+
+    /**
+     * Passes the id of every creature of a kind born within a range of dates to an action,
+     * oldest first.
+     *
+     * @param kind     the kind
+     * @param earliest the packed earliest date of birth, inclusive
+     * @param latest   the packed latest date of birth, inclusive
+     * @param action   the action to run for each id
+     */
+    void forEachBetween(final CreatureKind kind,
+                        final int earliest,
+                        final int latest,
+                        final IntConsumer action)
+    {
+        final long[] keys;
+        final int    end;
+
+        keys = cohorts[kind.ordinal()].keys();
+        end  = upperBound(keys, latest);
+
+        for (int i = lowerBound(keys, earliest); i < end; i++)
+        {
+            action.accept(idOf(keys[i]));
+        }
+    }
+
+    /**
+     * Passes the ids of the oldest creatures of a kind to an action, oldest first.
+     *
+     * @param kind   the kind
+     * @param count  the most creatures to visit
+     * @param action the action to run for each id
+     */
+    void forEachOldest(final CreatureKind kind,
+                       final int count,
+                       final IntConsumer action)
+    {
+        final long[] keys;
+        final int    end;
+
+        keys = cohorts[kind.ordinal()].keys();
+        end  = Math.min(count, keys.length);
+
+        for (int i = 0; i < end; i++)
+        {
+            action.accept(idOf(keys[i]));
+        }
+    }
+
+    /**
+     * Passes the ids of the youngest creatures of a kind to an action, youngest first.
+     *
+     * @param kind   the kind
+     * @param count  the most creatures to visit
+     * @param action the action to run for each id
+     */
+    void forEachYoungest(final CreatureKind kind,
+                         final int count,
+                         final IntConsumer action)
+    {
+        final long[] keys;
+        final int    end;
+
+        keys = cohorts[kind.ordinal()].keys();
+        end  = Math.max(keys.length - count, 0);
+
+        for (int i = keys.length - 1; i >= end; i--)
+        {
+            action.accept(idOf(keys[i]));
+        }
+    }
+
+    /**
+     * Builds the key of a creature.
+     *
+     * @param packedDate the creature's packed date of birth
+     * @param id         the creature's id
+     * @return the key
+     */
+    private static long keyOf(final int packedDate,
+                              final int id)
+    {
+        return (long) packedDate << DATE_SHIFT | id & ID_MASK;
+    }
+
+    /**
+     * Gets the id held in a key.
+     *
+     * @param key the key
+     * @return the id
+     */
+    private static int idOf(final long key)
+    {
+        return (int) (key & ID_MASK);
+    }
+
+    /**
+     * Finds the first key whose date is on or after a date.
+     *
+     * @param keys       the sorted keys
+     * @param packedDate the packed date
+     * @return the position of the key, or the number of keys if there is none
+     */
+    private static int lowerBound(final long[] keys,
+                                  final int packedDate)
+    {
+        return firstAtLeast(keys, (long) packedDate << DATE_SHIFT);
+    }
+
+    /**
+     * Finds the first key whose date is after a date.
+     *
+     * @param keys       the sorted keys
+     * @param packedDate the packed date
+     * @return the position of the key, or the number of keys if there is none
+     */
+    private static int upperBound(final long[] keys,
+                                  final int packedDate)
+    {
+        return firstAtLeast(keys, ((long) packedDate + 1) << DATE_SHIFT);
+    }
+
+    /**
+     * Finds the first key at least a value with a binary search.
+     *
+     * @param keys  the sorted keys
+     * @param value the value
+     * @return the position of the key, or the number of keys if there is none
+     */
+    private static int firstAtLeast(final long[] keys,
+                                    final long value)
+    {
+        int low;
+        int high;
+
+        low  = 0;
+        high = keys.length;
+
+        while (low < high)
+        {
+            final int middle;
+            middle = (low + high) >>> 1;
+
+            if (keys[middle] < value)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The creatures of one kind, as a sorted array of keys plus the additions and removals made
+     * since it was last sorted.
+     */
+    private static final class Cohort
+    {
+        private static final int DEFAULT_CAPACITY = 16;
+        private static final int GROWTH_FACTOR    = 2;
+
+        private long[] sorted;
+        private long[] added;
+        private long[] removed;
+        private int    addedCount;
+        private int    removedCount;
+
+        /**
+         * Constructs an empty {@code Cohort}.
+         */
+        private Cohort()
+        {
+            sorted       = new long[0];
+            added        = new long[DEFAULT_CAPACITY];
+            removed      = new long[DEFAULT_CAPACITY];
+            addedCount   = 0;
+            removedCount = 0;
+        }
+
+        /**
+         * Buffers a key to add.
+         *
+         * @param key the key
+         */
+        private synchronized void add(final long key)
+        {
+            if (addedCount == added.length)
+            {
+                added = Arrays.copyOf(added, added.length * GROWTH_FACTOR);
+            }
+            added[addedCount] = key;
+            addedCount++;
+        }
+
+        /**
+         * Buffers a key to remove. The key must be in the cohort or already buffered to add.
+         *
+         * @param key the key
+         */
+        private synchronized void remove(final long key)
+        {
+            if (removedCount == removed.length)
+            {
+                removed = Arrays.copyOf(removed, removed.length * GROWTH_FACTOR);
+            }
+            removed[removedCount] = key;
+            removedCount++;
+        }
+
+        /**
+         * Gets the sorted keys, merging in any buffered changes first.
+         *
+         * @return the sorted keys, which are never changed afterwards
+         */
+        private synchronized long[] keys()
+        {
+            if (addedCount > 0 || removedCount > 0)
+            {
+                merge();
+            }
+            return sorted;
+        }
+
+        /**
+         * Builds a new sorted array from the current one and the buffered changes in one pass.
+         * A removal cancels one copy of its key whether that copy was sorted or buffered.
+         */
+        private void merge()
+        {
+            final long[] merged;
+            int          from;
+            int          add;
+            int          remove;
+            int          to;
+
+            Arrays.sort(added, 0, addedCount);
+            Arrays.sort(removed, 0, removedCount);
+
+            merged = new long[sorted.length + addedCount - removedCount];
+            from   = 0;
+            add    = 0;
+            remove = 0;
+            to     = 0;
+
+            while (from < sorted.length || add < addedCount)
+            {
+                final long key;
+
+                if (add == addedCount || from < sorted.length && sorted[from] <= added[add])
+                {
+                    key = sorted[from];
+                    from++;
+                }
+                else
+                {
+                    key = added[add];
+                    add++;
+                }
+
+                while (remove < removedCount && removed[remove] < key)
+                {
+                    remove++;
+                }
+
+                if (remove < removedCount && removed[remove] == key)
+                {
+                    remove++;
+                }
+                else
+                {
+                    merged[to] = key;
+                    to++;
+                }
+            }
+
+            sorted       = merged;
+            addedCount   = 0;
+            removedCount = 0;
+        }
+    }
+}
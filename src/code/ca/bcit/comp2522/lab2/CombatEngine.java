@@ -0,0 +1,206 @@
+package ca.bcit.comp2522.lab2;
+
+/**
+ * Resolves batches of attacks between creatures held in a {@link CreatureStore}.
+ * <p>
+ * Each attack is an (attacker, action, target) triple. {@link #resolveBatch} applies the whole
+ * batch in one loop over the store's arrays with the same rules as {@link Dragon#breatheFire},
+ * {@link Elf#castSpell}, and {@link Orc#berserk}: resource costs are checked and spent, rage is
+ * capped at {@link Orc#MAX_RAGE}, and target health is clamped at {@link Creature#MIN_HEALTH}.
+ * Attacks that cannot be made are recorded in a failure bitmap instead of throwing, and nothing
+ * is printed.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public final class CombatEngine
+{
+    public static final byte ACTION_BREATHE_FIRE = CreatureKind.DRAGON_CODE;
+    public static final byte ACTION_CAST_SPELL   = CreatureKind.ELF_CODE;
+    public static final byte ACTION_BERSERK      = CreatureKind.ORC_CODE;
+
+    private static final int BITS_PER_WORD = Long.SIZE;
+    private static final int WORD_SHIFT    = 6;
+    private static final int NO_ATTACK     = -1;
+
+    private CombatEngine()
+    {
+    }
+
+    /**
+     * Resolves a batch of attacks in order.
+     * <p>
+     * Attack {@code i} is made by the creature at {@code attackers[i]} against the creature at
+     * {@code targets[i]} using {@code actions[i]}. An attack fails, leaving both creatures
+     * untouched, when the action does not belong to the attacker's kind or the attacker lacks the
+     * resource to perform it. Failed attacks set bit {@code i} of {@code failures}; every other
+     * bit in the first {@code count} positions is cleared.
+     * </p>
+     * <p>
+     * Every array and index is checked before anything is changed, so a batch that is rejected
+     * leaves the store, the journal, and the failure bitmap untouched.
+     * </p>
+     *
+     * @param store     the store holding both attackers and targets
+     * @param attackers the indexes of the attacking creatures
+     * @param actions   the action of each attack, one of the {@code ACTION_} constants
+     * @param targets   the indexes of the targeted creatures
+     * @param count     the number of attacks to resolve
+     * @param failures  the bitmap receiving one bit per attack, at least {@code (count + 63) / 64} words long
+     * @return the number of attacks that failed
+     * @throws IllegalArgumentException  if any array is too short for {@code count}
+     * @throws IndexOutOfBoundsException if an attacker or target index is not in the store
+     */
+    public static int resolveBatch(final CreatureStore store,
+                                   final int[] attackers,
+                                   final byte[] actions,
+                                   final int[] targets,
+                                   final int count,
+                                   final long[] failures)
+    {
+        final byte[]        kinds;
+        final int[]         health;
+        final int[]         resources;
+        final long[]        regenerating;
+        final int           words;
+        final CombatJournal journal;
+        int                 failed;
+
+        validateBatch(store.size, attackers, actions, targets, count, failures);
+
+        kinds        = store.kinds;
+        health       = store.health;
+        resources    = store.resources;
+        regenerating = store.regenerating;
+        words        = (count + BITS_PER_WORD - 1) >>> WORD_SHIFT;
+        journal      = store.journal;
+        failed       = 0;
+
+        for (int w = 0; w < words; w++)
+        {
+            failures[w] = 0L;
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            final int  attacker;
+            final int  target;
+            final byte action;
+            final int  resource;
+            final int  damage;
+
+            attacker = attackers[i];
+            target   = targets[i];
+            action   = actions[i];
+            resource = resources[attacker];
+
+            if (action != kinds[attacker])
+            {
+                damage = NO_ATTACK;
+            }
+            else if (action == ACTION_BREATHE_FIRE)
+            {
+                if (resource < Dragon.FIRE_POWER_COST)
+                {
+                    damage = NO_ATTACK;
+                }
+                else
+                {
+                    resources[attacker] = resource - Dragon.FIRE_POWER_COST;
+                    damage              = Dragon.FIRE_POWER_DAMAGE;
+                }
+            }
+            else if (action == ACTION_CAST_SPELL)
+            {
+                if (resource < Elf.MANA_COST)
+                {
+                    damage = NO_ATTACK;
+                }
+                else
+                {
+                    resources[attacker] = resource - Elf.MANA_COST;
+                    damage              = Elf.SPELL_DAMAGE;
+                }
+            }
+            else if (resource < Orc.MIN_BERSERK_RAGE)
+            {
+                damage = NO_ATTACK;
+            }
+            else
+            {
+                final int rage;
+                rage = Math.min(resource + Orc.RAGE_INCREASE, Orc.MAX_RAGE);
+
+                resources[attacker] = rage;
+                damage              = rage > Orc.RAGE_THRESHOLD ? Orc.DOUBLE_DAMAGE : Orc.NORMAL_DAMAGE;
+            }
+
+            if (damage == NO_ATTACK)
+            {
+                failures[i >>> WORD_SHIFT] |= 1L << i;
+                failed++;
+            }
+            else
+            {
+                regenerating[attacker >>> WORD_SHIFT] |= 1L << attacker;
+                health[target] = Math.max(health[target] - damage, Creature.MIN_HEALTH);
+
+                if (journal != null)
+                {
+                    journal.record(CombatJournal.OP_RESOURCE, attacker, resource, resources[attacker]);
+                    journal.record(CombatJournal.OP_DAMAGE, target, damage, health[target]);
+                }
+            }
+        }
+
+        return failed;
+    }
+
+    /**
+     * Validates that the batch arrays can hold {@code count} attacks and that every attack
+     * refers to creatures in the store.
+     *
+     * @param size      the number of creatures in the store
+     * @param attackers the attacker indexes
+     * @param actions   the actions
+     * @param targets   the target indexes
+     * @param count     the number of attacks
+     * @param failures  the failure bitmap
+     * @throws IllegalArgumentException  if the count is negative or any array is too short
+     * @throws IndexOutOfBoundsException if an attacker or target index is not in the store
+     */
+    private static void validateBatch(final int size,
+                                      final int[] attackers,
+                                      final byte[] actions,
+                                      final int[] targets,
+                                      final int count,
+                                      final long[] failures)
+    {
+        if (count < 0)
+        {
+            throw new IllegalArgumentException("Count must not be negative");
+        }
+
+        if (attackers.length < count ||
+            actions.length < count ||
+            targets.length < count)
+        {
+            throw new IllegalArgumentException("Attack arrays must hold at least " + count + " attacks");
+        }
+
+        if ((long) failures.length * BITS_PER_WORD < count)
+        {
+            throw new IllegalArgumentException("Failure bitmap must hold at least " + count + " bits");
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            if (attackers[i] < 0 || attackers[i] >= size ||
+                targets[i] < 0 || targets[i] >= size)
+            {
+                throw new IndexOutOfBoundsException("Attack " + i + " refers to a creature outside the store");
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ca.bcit.comp2522.lab2;
+
+/**
+ * Receives the combat events published by {@link Dragon}, {@link Elf}, and {@link Orc}
+ * when they attack.
+ * <p>
+ * A listener is installed for all creatures with
+ * {@link Creature#setCombatEventListener(CombatEventListener)}. Creatures call the listener on
+ * the attacking thread, so implementations should return quickly and must be safe to call from
+ * several threads at once. Both methods do nothing by default, and {@link #NONE} is the listener
+ * in use until another one is installed.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public interface CombatEventListener
+{
+    /**
+     * A listener that ignores every event.
+     */
+    CombatEventListener NONE = new CombatEventListener()
+    {
+    };
+
+    /**
+     * Called after an attack has been made.
+     *
+     * @param attacker          the attacking creature
+     * @param action            the action used, one of the {@link CombatEngine} {@code ACTION_} constants
+     * @param target            the creature that was attacked
+     * @param damage            the damage dealt to the target
+     * @param remainingResource the attacker's fire power, mana, or rage after the attack
+     * @param killed            whether this attack killed the target; {@code false} if the target
+     *                          survived or was already dead
+     */
+    default void onAttack(final Creature attacker,
+                          final byte action,
+                          final Creature target,
+                          final int damage,
+                          final int remainingResource,
+                          final boolean killed)
+    {
+    }
+
+    /**
+     * Called when an attack could not be made because the attacker lacked the resource for it.
+     *
+     * @param attacker          the creature that tried to attack
+     * @param action            the action attempted, one of the {@link CombatEngine} {@code ACTION_} constants
+     * @param target            the creature that would have been attacked, or null for an area attack
+     * @param remainingResource the attacker's fire power, mana, or rage
+     */
+    default void onAttackFailed(final Creature attacker,
+                                final byte action,
+                                final Creature target,
+                                final int remainingResource)
+    {
+    }
+}
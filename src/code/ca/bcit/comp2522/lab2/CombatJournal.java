@@ -0,0 +1,524 @@
+package ca.bcit.comp2522.lab2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only binary journal of every change made to the creatures in a {@link CreatureStore},
+ * for auditing and for rebuilding state after a restart.
+ * <p>
+ * The file starts with a header and is followed by fixed-size records, each holding an operation
+ * code, the index of the creature it applies to, the amount of the change, and the value that
+ * resulted. Records are collected in a direct buffer and written to the file in batches, so
+ * journaling a change costs a few stores into memory. How often the file is forced to disk is
+ * chosen with a {@link SyncPolicy}.
+ * </p>
+ * <p>
+ * {@link #replay(Path, CreatureStore)} applies a journal to a store restored from the
+ * {@link CreatureSnapshot} taken when the journal was started, and checks every recorded result
+ * against the result it computes.
+ * </p>
+ * <p>
+ * A journal can also be attached to individual {@link Creature}s with
+ * {@link #attach(Creature, int)}, so that their own damage, healing, and resource changes are
+ * recorded under the index given, normally the index the creature was added at with
+ * {@link CreatureStore#add(Creature)} in the store that was snapshotted. A creature makes each
+ * change and records it while holding its own lock, so its records are in the order its changes
+ * were made even when several threads attack it at once, while different creatures still change
+ * in parallel and only meet briefly in {@link #record(byte, int, int, int)}.
+ * </p>
+ * <p>
+ * Every method that touches the batch holds the journal's lock, so records from attached
+ * creatures and from the store can be added while another thread flushes.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class CombatJournal implements AutoCloseable
+{
+    /**
+     * A creature took damage: amount is the damage, result is the new health.
+     */
+    public static final byte OP_DAMAGE = 1;
+
+    /**
+     * A creature was healed: amount is the healing, result is the new health.
+     */
+    public static final byte OP_HEAL = 2;
+
+    /**
+     * A creature's fire power, mana, or rage changed: amount is the old value, result is the new one.
+     */
+    public static final byte OP_RESOURCE = 3;
+
+    /**
+     * Every creature took the same damage: index is the store size, amount is the damage, and
+     * result is the store size.
+     */
+    public static final byte OP_DAMAGE_ALL = 4;
+
+    private static final int   MAGIC   = 0x4C4A5243; // "CRJL" in little-endian byte order
+    private static final short VERSION = 1;
+
+    // --- Header layout, in bytes ---
+    private static final int MAGIC_OFFSET       = 0;
+    private static final int VERSION_OFFSET     = 4;
+    private static final int RECORD_SIZE_OFFSET = 6;
+    private static final int HEADER_SIZE        = 16;
+
+    // --- Record layout, in bytes ---
+    private static final int OP_OFFSET     = 0;
+    private static final int INDEX_OFFSET  = 4;
+    private static final int AMOUNT_OFFSET = 8;
+    private static final int RESULT_OFFSET = 12;
+    private static final int RECORD_SIZE   = 16;
+
+    private static final int DEFAULT_BATCH_RECORDS = 4096;
+    private static final int MIN_BATCH_RECORDS     = 1;
+
+    private final FileChannel channel;
+    private final ByteBuffer  batch;
+    private final SyncPolicy  syncPolicy;
+
+    private long recordsWritten;
+
+    /**
+     * When the journal forces written records to the storage device.
+     */
+    public enum SyncPolicy
+    {
+        /**
+         * Never force; the operating system writes the file back when it chooses. Fastest, but
+         * records written shortly before a power failure may be lost.
+         */
+        NEVER,
+
+        /**
+         * Force once when the journal is closed.
+         */
+        ON_CLOSE,
+
+        /**
+         * Force after every batch is written, so a flushed record survives a power failure.
+         */
+        EVERY_BATCH
+    }
+
+    /**
+     * Opens a journal with the default batch size, creating the file if it does not exist and
+     * appending to it if it does.
+     *
+     * @param path       the journal file
+     * @param syncPolicy when to force records to disk, must not be null
+     * @throws IOException              if the file cannot be opened or is not a combat journal
+     * @throws IllegalArgumentException if the sync policy is null
+     */
+    public CombatJournal(final Path path,
+                         final SyncPolicy syncPolicy) throws IOException
+    {
+        this(path, syncPolicy, DEFAULT_BATCH_RECORDS);
+    }
+
+    /**
+     * Opens a journal, creating the file if it does not exist and appending to it if it does.
+     * A record left incomplete at the end of an existing file is discarded.
+     *
+     * @param path         the journal file
+     * @param syncPolicy   when to force records to disk, must not be null
+     * @param batchRecords the number of records collected before they are written, at least one
+     * @throws IOException              if the file cannot be opened or is not a combat journal
+     * @throws IllegalArgumentException if the sync policy is null or the batch size is less than one
+     */
+    public CombatJournal(final Path path,
+                         final SyncPolicy syncPolicy,
+                         final int batchRecords) throws IOException
+    {
+        final long size;
+
+        if (syncPolicy == null)
+        {
+            throw new IllegalArgumentException("Sync policy cannot be null");
+        }
+
+        if (batchRecords < MIN_BATCH_RECORDS)
+        {
+            throw new IllegalArgumentException("Batch size must be at least " + MIN_BATCH_RECORDS + " record");
+        }
+
+        this.syncPolicy = syncPolicy;
+        this.batch      = ByteBuffer.allocateDirect(batchRecords * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.channel    = FileChannel.open(path,
+                                           StandardOpenOption.CREATE,
+                                           StandardOpenOption.READ,
+                                           StandardOpenOption.WRITE);
+
+        try
+        {
+            size = channel.size();
+
+            if (size == 0)
+            {
+                batch.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putLong(0L);
+                writeBatch();
+                recordsWritten = 0L;
+            }
+            else
+            {
+                checkHeader(channel, path);
+                recordsWritten = (size - HEADER_SIZE) / RECORD_SIZE;
+                channel.truncate(HEADER_SIZE + recordsWritten * RECORD_SIZE);
+                channel.position(HEADER_SIZE + recordsWritten * RECORD_SIZE);
+            }
+        }
+        catch (final IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a record to the journal. The record reaches the file when the batch fills, or on
+     * {@link #flush()} or {@link #close()}.
+     *
+     * @param op     the operation, one of the {@code OP_} constants
+     * @param index  the index of the creature in the store
+     * @param amount the amount of the change
+     * @param result the value that resulted
+     * @throws UncheckedIOException if a full batch cannot be written
+     */
+    public synchronized void record(final byte op,
+                                    final int index,
+                                    final int amount,
+                                    final int result)
+    {
+        final int position;
+
+        if (!batch.hasRemaining())
+        {
+            flushUnchecked();
+        }
+
+        position = batch.position();
+        batch.put(position + OP_OFFSET, op);
+        batch.putInt(position + INDEX_OFFSET, index);
+        batch.putInt(position + AMOUNT_OFFSET, amount);
+        batch.putInt(position + RESULT_OFFSET, result);
+        batch.position(position + RECORD_SIZE);
+
+        recordsWritten++;
+    }
+
+    /**
+     * Writes every collected record to the file, forcing it to disk if the sync policy is
+     * {@link SyncPolicy#EVERY_BATCH}.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void flush() throws IOException
+    {
+        if (batch.position() == 0)
+        {
+            return;
+        }
+
+        writeBatch();
+        if (syncPolicy == SyncPolicy.EVERY_BATCH)
+        {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Flushes every collected record and closes the file, forcing it to disk unless the sync
+     * policy is {@link SyncPolicy#NEVER}.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            flush();
+            if (syncPolicy != SyncPolicy.NEVER)
+            {
+                channel.force(false);
+            }
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * Gets the number of records in the journal, including those not yet written to the file.
+     *
+     * @return the record count
+     */
+    public synchronized long getRecordsWritten()
+    {
+        return recordsWritten;
+    }
+
+    /**
+     * Attaches the journal to a creature, so that its damage, healing, and resource changes are
+     * recorded under an index.
+     *
+     * @param creature the creature, must not be null or already have a journal attached
+     * @param index    the index to record the creature's changes under, not negative
+     * @throws IllegalArgumentException if the creature is null or already has a journal, or the
+     *                                  index is negative
+     */
+    public void attach(final Creature creature,
+                       final int index)
+    {
+        if (creature == null)
+        {
+            throw new IllegalArgumentException("Creature cannot be null");
+        }
+
+        if (index < 0)
+        {
+            throw new IllegalArgumentException("Index cannot be negative");
+        }
+
+        if (creature.journal != null)
+        {
+            throw new IllegalArgumentException(creature.getName() + " already has a journal attached");
+        }
+
+        creature.journalIndex = index;
+        creature.journal      = this;
+    }
+
+    /**
+     * Detaches the journal from a creature. Does nothing if the journal is not attached to it.
+     *
+     * @param creature the creature, must not be null
+     * @throws IllegalArgumentException if the creature is null
+     */
+    public void detach(final Creature creature)
+    {
+        if (creature == null)
+        {
+            throw new IllegalArgumentException("Creature cannot be null");
+        }
+
+        if (creature.journal == this)
+        {
+            creature.journal = null;
+        }
+    }
+
+    /**
+     * Applies every record in a journal to a store, checking each recorded result.
+     * <p>
+     * The store must hold the state the journal started from, such as a store restored from the
+     * snapshot taken when the journal was opened. Changes are made to the store's arrays
+     * directly, so a journal attached to the store does not record them again. A record left
+     * incomplete at the end of the file is ignored.
+     * </p>
+     *
+     * @param path  the journal file
+     * @param store the store to apply the journal to, must not be null
+     * @return the number of records applied
+     * @throws IOException           if the file cannot be read or is not a combat journal
+     * @throws IllegalStateException if a record does not match the store, meaning the store
+     *                               did not start from the journal's state
+     */
+    public static long replay(final Path path,
+                              final CreatureStore store) throws IOException
+    {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            final ByteBuffer buffer;
+            long             applied;
+
+            checkHeader(in, path);
+            in.position(HEADER_SIZE);
+
+            buffer  = ByteBuffer.allocateDirect(DEFAULT_BATCH_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            applied = 0L;
+
+            while (in.read(buffer) > 0 || buffer.position() >= RECORD_SIZE)
+            {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE)
+                {
+                    final int base;
+                    base = buffer.position();
+
+                    apply(store,
+                          applied,
+                          buffer.get(base + OP_OFFSET),
+                          buffer.getInt(base + INDEX_OFFSET),
+                          buffer.getInt(base + AMOUNT_OFFSET),
+                          buffer.getInt(base + RESULT_OFFSET));
+
+                    buffer.position(base + RECORD_SIZE);
+                    applied++;
+                }
+                buffer.compact();
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * Applies a single journal record to a store.
+     *
+     * @param store  the store to apply the record to
+     * @param number the position of the record in the journal, for error messages
+     * @param op     the operation
+     * @param index  the index of the creature
+     * @param amount the amount of the change
+     * @param result the recorded result
+     * @throws IllegalStateException if the record does not match the store
+     */
+    private static void apply(final CreatureStore store,
+                              final long number,
+                              final byte op,
+                              final int index,
+                              final int amount,
+                              final int result)
+    {
+        final int actual;
+
+        if (op == OP_DAMAGE_ALL)
+        {
+            if (index != store.size || result != store.size)
+            {
+                throw diverged(number, "store has " + store.size + " creatures, journal expected " + index);
+            }
+
+            for (int i = 0; i < store.size; i++)
+            {
+                store.health[i] = Math.max(store.health[i] - amount, Creature.MIN_HEALTH);
+            }
+            return;
+        }
+
+        if (index < 0 || index >= store.size)
+        {
+            throw diverged(number, "creature " + index + " is not in the store");
+        }
+
+        if (op == OP_DAMAGE)
+        {
+            actual = Creature.damagedHealth(store.health[index], amount);
+            store.health[index] = actual;
+        }
+        else if (op == OP_HEAL)
+        {
+            actual = Creature.healedHealth(store.health[index], amount);
+            store.health[index] = actual;
+            store.markRegenerating(index);
+        }
+        else if (op == OP_RESOURCE)
+        {
+            if (store.resources[index] != amount)
+            {
+                throw diverged(number, "creature " + index + " has resource " + store.resources[index] +
+                                       ", journal expected " + amount);
+            }
+            actual = result;
+            store.resources[index] = actual;
+            store.markRegenerating(index);
+        }
+        else
+        {
+            throw diverged(number, "unknown operation " + op);
+        }
+
+        if (actual != result)
+        {
+            throw diverged(number, "creature " + index + " ended at " + actual + ", journal recorded " + result);
+        }
+    }
+
+    /**
+     * Creates the exception thrown when replay finds a record that does not match the store.
+     *
+     * @param number the position of the record in the journal
+     * @param detail what did not match
+     * @return the exception
+     */
+    private static IllegalStateException diverged(final long number,
+                                                  final String detail)
+    {
+        return new IllegalStateException("Journal diverges from the store at record " + number + ": " + detail);
+    }
+
+    /**
+     * Checks that a file starts with a combat journal header.
+     *
+     * @param file the open file
+     * @param path the file's path, for error messages
+     * @throws IOException if the header is missing or of an unsupported version
+     */
+    private static void checkHeader(final FileChannel file,
+                                    final Path path) throws IOException
+    {
+        final ByteBuffer header;
+        header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        int read;
+
+        do
+        {
+            read = file.read(header, header.position());
+        }
+        while (read > 0 && header.hasRemaining());
+
+        if (header.hasRemaining() || header.getInt(MAGIC_OFFSET) != MAGIC)
+        {
+            throw new IOException("Not a combat journal: " + path);
+        }
+
+        if (header.getShort(VERSION_OFFSET) != VERSION ||
+            header.getShort(RECORD_SIZE_OFFSET) != RECORD_SIZE)
+        {
+            throw new IOException("Unsupported combat journal version " + header.getShort(VERSION_OFFSET));
+        }
+    }
+
+    /**
+     * Writes the collected records to the file and empties the batch.
+     *
+     * @throws IOException if the write fails
+     */
+    private void writeBatch() throws IOException
+    {
+        batch.flip();
+        while (batch.hasRemaining())
+        {
+            channel.write(batch);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Flushes the batch for a caller that cannot throw a checked exception.
+     *
+     * @throws UncheckedIOException if the records cannot be written
+     */
+    private void flushUnchecked()
+    {
+        try
+        {
+            flush();
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package ca.bcit.comp2522.lab2;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times the combat operations: how often each attack succeeds, fails for lack of
+ * resource, or kills its target, how long attacks, damage, and healing take, and how often a
+ * creature's attributes fail validation.
+ * <p>
+ * Metrics are off unless the system property {@code ca.bcit.comp2522.lab2.metrics} is
+ * {@code true}. The switch is a {@code static final} constant, so when metrics are off the JIT
+ * compiler removes every recording call and the hot paths cost exactly what they did before.
+ * When on, counters are striped {@link LongAdder}s and latencies go into
+ * {@link LatencyHistogram}s, so recording from many threads does not contend.
+ * </p>
+ * <p>
+ * Read the metrics with {@link #snapshot()}, or over JMX after calling {@link #registerMBean()}.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public final class CombatMetrics
+{
+    /**
+     * Whether metrics are recorded. Set the system property {@code ca.bcit.comp2522.lab2.metrics}
+     * to {@code true} to turn them on.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("ca.bcit.comp2522.lab2.metrics");
+
+    /**
+     * The name the metrics are registered under in the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "ca.bcit.comp2522.lab2:type=CombatMetrics";
+
+    // Counter slots for each action, kept separate from the action codes so that a new code
+    // cannot silently alias another action's counters
+    private static final int BREATHE_FIRE_INDEX = 0;
+    private static final int CAST_SPELL_INDEX   = 1;
+    private static final int BERSERK_INDEX      = 2;
+    private static final int ACTION_COUNT       = 3;
+
+    private static final LongAdder[]        ATTACKS             = adders(ACTION_COUNT);
+    private static final LongAdder[]        FAILED_ATTACKS      = adders(ACTION_COUNT);
+    private static final LongAdder          KILLS               = new LongAdder();
+    private static final LongAdder          VALIDATION_FAILURES = new LongAdder();
+    private static final LatencyHistogram[] LATENCIES           = histograms(Operation.values().length);
+
+    /**
+     * The timed operations.
+     */
+    public enum Operation
+    {
+        /**
+         * {@link Dragon#breatheFire(Creature)} and its variants.
+         */
+        BREATHE_FIRE,
+
+        /**
+         * {@link Elf#castSpell(Creature)} and its variants.
+         */
+        CAST_SPELL,
+
+        /**
+         * {@link Orc#berserk(Creature)} and its variants.
+         */
+        BERSERK,
+
+        /**
+         * {@link Creature#takeDamage(int)}.
+         */
+        TAKE_DAMAGE,
+
+        /**
+         * {@link Creature#heal(int)}.
+         */
+        HEAL
+    }
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private CombatMetrics()
+    {
+    }
+
+    /**
+     * Reads the clock at the start of a timed operation.
+     *
+     * @return the current time in nanoseconds, or zero when metrics are off
+     */
+    static long startTimer()
+    {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records a successful attack.
+     *
+     * @param action     the action used, one of the {@link CombatEngine} {@code ACTION_} constants
+     * @param startNanos the time from {@link #startTimer()} when the attack began
+     * @param killed     whether this attack killed its target; area attacks pass {@code false}
+     *                   and record each kill with {@link #recordKill()}
+     * @throws IllegalArgumentException if metrics are on and the action is unknown
+     */
+    static void recordAttack(final byte action,
+                             final long startNanos,
+                             final boolean killed)
+    {
+        if (!ENABLED)
+        {
+            return;
+        }
+
+        LATENCIES[operationOf(action).ordinal()].record(System.nanoTime() - startNanos);
+        ATTACKS[indexOf(action)].increment();
+
+        if (killed)
+        {
+            KILLS.increment();
+        }
+    }
+
+    /**
+     * Records an attack that failed for lack of resource.
+     *
+     * @param action the action attempted, one of the {@link CombatEngine} {@code ACTION_} constants
+     * @throws IllegalArgumentException if metrics are on and the action is unknown
+     */
+    static void recordFailedAttack(final byte action)
+    {
+        if (ENABLED)
+        {
+            FAILED_ATTACKS[indexOf(action)].increment();
+        }
+    }
+
+    /**
+     * Records a creature killed by an area attack.
+     */
+    static void recordKill()
+    {
+        if (ENABLED)
+        {
+            KILLS.increment();
+        }
+    }
+
+    /**
+     * Records a completed damage or heal operation.
+     *
+     * @param operation  {@link Operation#TAKE_DAMAGE} or {@link Operation#HEAL}
+     * @param startNanos the time from {@link #startTimer()} when the operation began
+     */
+    static void recordHealthChange(final Operation operation,
+                                   final long startNanos)
+    {
+        if (ENABLED)
+        {
+            LATENCIES[operation.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Records a creature attribute that failed validation.
+     */
+    static void recordValidationFailure()
+    {
+        if (ENABLED)
+        {
+            VALIDATION_FAILURES.increment();
+        }
+    }
+
+    /**
+     * Takes a copy of every metric.
+     *
+     * @return the metrics as of now
+     */
+    public static Snapshot snapshot()
+    {
+        return new Snapshot();
+    }
+
+    /**
+     * Clears every metric.
+     */
+    public static void reset()
+    {
+        for (int i = 0; i < ACTION_COUNT; i++)
+        {
+            ATTACKS[i].reset();
+            FAILED_ATTACKS[i].reset();
+        }
+
+        for (final LatencyHistogram histogram : LATENCIES)
+        {
+            histogram.reset();
+        }
+
+        KILLS.reset();
+        VALIDATION_FAILURES.reset();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under {@link #OBJECT_NAME}.
+     * Registering more than once has no effect.
+     *
+     * @throws IllegalStateException if the MBean server rejects the registration
+     */
+    public static void registerMBean()
+    {
+        final MBeanServer server;
+        server = ManagementFactory.getPlatformMBeanServer();
+
+        try
+        {
+            server.registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        }
+        catch (final InstanceAlreadyExistsException e)
+        {
+            // Already registered by an earlier call
+        }
+        catch (final JMException e)
+        {
+            throw new IllegalStateException("Could not register combat metrics", e);
+        }
+    }
+
+    /**
+     * Gets the counter slot of an action.
+     *
+     * @param action one of the {@link CombatEngine} {@code ACTION_} constants
+     * @return the slot in the attack counters
+     * @throws IllegalArgumentException if the action is unknown
+     */
+    private static int indexOf(final byte action)
+    {
+        switch (action)
+        {
+            case CombatEngine.ACTION_BREATHE_FIRE:
+                return BREATHE_FIRE_INDEX;
+            case CombatEngine.ACTION_CAST_SPELL:
+                return CAST_SPELL_INDEX;
+            case CombatEngine.ACTION_BERSERK:
+                return BERSERK_INDEX;
+            default:
+                throw new IllegalArgumentException("Unknown action: " + action);
+        }
+    }
+
+    /**
+     * Gets the timed operation of an action.
+     *
+     * @param action one of the {@link CombatEngine} {@code ACTION_} constants
+     * @return the operation the action's latency is recorded under
+     * @throws IllegalArgumentException if the action is unknown
+     */
+    private static Operation operationOf(final byte action)
+    {
+        switch (action)
+        {
+            case CombatEngine.ACTION_BREATHE_FIRE:
+                return Operation.BREATHE_FIRE;
+            case CombatEngine.ACTION_CAST_SPELL:
+                return Operation.CAST_SPELL;
+            case CombatEngine.ACTION_BERSERK:
+                return Operation.BERSERK;
+            default:
+                throw new IllegalArgumentException("Unknown action: " + action);
+        }
+    }
+
+    /**
+     * Creates an array of counters.
+     *
+     * @param count the number of counters
+     * @return the counters
+     */
+    private static LongAdder[] adders(final int count)
+    {
+        final LongAdder[] adders;
+        adders = new LongAdder[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Creates an array of histograms.
+     *
+     * @param count the number of histograms
+     * @return the histograms
+     */
+    private static LatencyHistogram[] histograms(final int count)
+    {
+        final LatencyHistogram[] histograms;
+        histograms = new LatencyHistogram[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    /**
+     * A copy of every metric taken at one moment.
+     */
+    public static final class Snapshot
+    {
+        private final long[]   attacks;
+        private final long[]   failedAttacks;
+        private final long     kills;
+        private final long     validationFailures;
+        private final long[][] latencies;
+
+        /**
+         * Copies the current metrics.
+         */
+        private Snapshot()
+        {
+            attacks       = new long[ACTION_COUNT];
+            failedAttacks = new long[ACTION_COUNT];
+            latencies     = new long[LATENCIES.length][];
+
+            for (int i = 0; i < ACTION_COUNT; i++)
+            {
+                attacks[i]       = ATTACKS[i].sum();
+                failedAttacks[i] = FAILED_ATTACKS[i].sum();
+            }
+
+            for (int i = 0; i < LATENCIES.length; i++)
+            {
+                latencies[i] = LATENCIES[i].snapshot();
+            }
+
+            kills              = KILLS.sum();
+            validationFailures = VALIDATION_FAILURES.sum();
+        }
+
+        /**
+         * Gets the number of successful attacks of every kind.
+         *
+         * @return the attack count
+         */
+        public long getAttacks()
+        {
+            return attacks[BREATHE_FIRE_INDEX] +
+                   attacks[CAST_SPELL_INDEX] +
+                   attacks[BERSERK_INDEX];
+        }
+
+        /**
+         * Gets the number of successful attacks with one action.
+         *
+         * @param action one of the {@link CombatEngine} {@code ACTION_} constants
+         * @return the attack count
+         * @throws IllegalArgumentException if the action is unknown
+         */
+        public long getAttacks(final byte action)
+        {
+            return attacks[indexOf(action)];
+        }
+
+        /**
+         * Gets the number of attacks of every kind that failed for lack of resource.
+         *
+         * @return the failed attack count
+         */
+        public long getFailedAttacks()
+        {
+            return failedAttacks[BREATHE_FIRE_INDEX] +
+                   failedAttacks[CAST_SPELL_INDEX] +
+                   failedAttacks[BERSERK_INDEX];
+        }
+
+        /**
+         * Gets the number of attacks with one action that failed for lack of resource.
+         *
+         * @param action one of the {@link CombatEngine} {@code ACTION_} constants
+         * @return the failed attack count
+         * @throws IllegalArgumentException if the action is unknown
+         */
+        public long getFailedAttacks(final byte action)
+        {
+            return failedAttacks[indexOf(action)];
+        }
+
+        /**
+         * Gets the number of attacks that left their target dead.
+         *
+         * @return the kill count
+         */
+        public long getKills()
+        {
+            return kills;
+        }
+
+        /**
+         * Gets the number of creature attributes that failed validation.
+         *
+         * @return the validation failure count
+         */
+        public long getValidationFailures()
+        {
+            return validationFailures;
+        }
+
+        /**
+         * Gets the number of times an operation was timed.
+         *
+         * @param operation the operation
+         * @return the count
+         */
+        public long getLatencyCount(final Operation operation)
+        {
+            return LatencyHistogram.countOf(latencies[operation.ordinal()]);
+        }
+
+        /**
+         * Gets the latency of an operation at a percentile.
+         *
+         * @param operation  the operation
+         * @param percentile the percentile, between zero and one hundred
+         * @return the latency in nanoseconds, or zero if the operation was never timed
+         * @throws IllegalArgumentException if the percentile is out of range
+         */
+        public long getLatencyPercentile(final Operation operation,
+                                         final double percentile)
+        {
+            return LatencyHistogram.percentileOf(latencies[operation.ordinal()], percentile);
+        }
+    }
+
+    /**
+     * Exposes the metrics over JMX.
+     */
+    private static final class Bean implements CombatMetricsMXBean
+    {
+        @Override
+        public boolean isEnabled()
+        {
+            return ENABLED;
+        }
+
+        @Override
+        public long getAttacks()
+        {
+            return snapshot().getAttacks();
+        }
+
+        @Override
+        public long getFailedAttacks()
+        {
+            return snapshot().getFailedAttacks();
+        }
+
+        @Override
+        public long getKills()
+        {
+            return KILLS.sum();
+        }
+
+        @Override
+        public long getValidationFailures()
+        {
+            return VALIDATION_FAILURES.sum();
+        }
+
+        @Override
+        public long getLatencyCount(final String operation)
+        {
+            return LATENCIES[Operation.valueOf(operation).ordinal()].getCount();
+        }
+
+        @Override
+        public long getLatencyPercentileNanos(final String operation,
+                                              final double percentile)
+        {
+            return LATENCIES[Operation.valueOf(operation).ordinal()].getPercentile(percentile);
+        }
+
+        @Override
+        public void reset()
+        {
+            CombatMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ca.bcit.comp2522.lab2;
+
+/**
+ * The JMX view of {@link CombatMetrics}, registered by {@link CombatMetrics#registerMBean()}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public interface CombatMetricsMXBean
+{
+    /**
+     * Checks if metrics are being recorded.
+     *
+     * @return {@code true} if metrics are on
+     */
+    boolean isEnabled();
+
+    /**
+     * Gets the number of successful attacks of every kind.
+     *
+     * @return the attack count
+     */
+    long getAttacks();
+
+    /**
+     * Gets the number of attacks that failed for lack of resource.
+     *
+     * @return the failed attack count
+     */
+    long getFailedAttacks();
+
+    /**
+     * Gets the number of attacks that left their target dead.
+     *
+     * @return the kill count
+     */
+    long getKills();
+
+    /**
+     * Gets the number of creature attributes that failed validation.
+     *
+     * @return the validation failure count
+     */
+    long getValidationFailures();
+
+    /**
+     * Gets the number of times an operation was timed.
+     *
+     * @param operation the name of a {@link CombatMetrics.Operation}
+     * @return the count
+     */
+    long getLatencyCount(String operation);
+
+    /**
+     * Gets the latency of an operation at a percentile.
+     *
+     * @param operation  the name of a {@link CombatMetrics.Operation}
+     * @param percentile the percentile, between zero and one hundred
+     * @return the latency in nanoseconds
+     */
+    long getLatencyPercentileNanos(String operation, double percentile);
+
+    /**
+     * Clears every metric.
+     */
+    void reset();
+}
@@ -0,0 +1,128 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link CombatEventListener} that only counts events.
+ * <p>
+ * Counts are kept in {@link LongAdder}s, so many simulation threads can publish to the same
+ * listener without contending on a single counter.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class CountingCombatEventListener implements CombatEventListener
+{
+    private final LongAdder attacks;
+    private final LongAdder failedAttacks;
+    private final LongAdder damageDealt;
+    private final LongAdder kills;
+
+    /**
+     * Constructs a new {@code CountingCombatEventListener} with all counts at zero.
+     */
+    public CountingCombatEventListener()
+    {
+        attacks       = new LongAdder();
+        failedAttacks = new LongAdder();
+        damageDealt   = new LongAdder();
+        kills         = new LongAdder();
+    }
+
+    /**
+     * Counts a successful attack, its damage, and whether it killed the target.
+     *
+     * @param attacker          the attacking creature
+     * @param action            the action used
+     * @param target            the creature that was attacked
+     * @param damage            the damage dealt to the target
+     * @param remainingResource the attacker's resource after the attack
+     * @param killed            whether this attack killed the target
+     */
+    @Override
+    public void onAttack(final Creature attacker,
+                         final byte action,
+                         final Creature target,
+                         final int damage,
+                         final int remainingResource,
+                         final boolean killed)
+    {
+        attacks.increment();
+        damageDealt.add(damage);
+
+        if (killed)
+        {
+            kills.increment();
+        }
+    }
+
+    /**
+     * Counts an attack that failed for lack of resource.
+     *
+     * @param attacker          the creature that tried to attack
+     * @param action            the action attempted
+     * @param target            the creature that would have been attacked
+     * @param remainingResource the attacker's resource
+     */
+    @Override
+    public void onAttackFailed(final Creature attacker,
+                               final byte action,
+                               final Creature target,
+                               final int remainingResource)
+    {
+        failedAttacks.increment();
+    }
+
+    /**
+     * Gets the number of successful attacks.
+     *
+     * @return the attack count
+     */
+    public long getAttacks()
+    {
+        return attacks.sum();
+    }
+
+    /**
+     * Gets the number of attacks that failed for lack of resource.
+     *
+     * @return the failed attack count
+     */
+    public long getFailedAttacks()
+    {
+        return failedAttacks.sum();
+    }
+
+    /**
+     * Gets the total damage dealt by successful attacks.
+     *
+     * @return the damage total
+     */
+    public long getDamageDealt()
+    {
+        return damageDealt.sum();
+    }
+
+    /**
+     * Gets the number of attacks that killed their target. Attacks on a target that was
+     * already dead are not counted.
+     *
+     * @return the kill count
+     */
+    public long getKills()
+    {
+        return kills.sum();
+    }
+
+    /**
+     * Resets every count to zero.
+     */
+    public void reset()
+    {
+        attacks.reset();
+        failedAttacks.reset();
+        damageDealt.reset();
+        kills.reset();
+    }
+}
@@ -1,5 +1,9 @@
 package ca.bcit.comp2522.lab2;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
 /**
  * Represents a fantasy creature with a name, date of birth, and health status.
  * <p>
@@ -7,25 +11,71 @@ package ca.bcit.comp2522.lab2;
  * current health, and whether it is alive. The class enforces validation rules for
  * name, date of birth (cannot be in the future), and health (must be within valid limits).
  * </p>
+ * <p>
+ * Every creature is a {@link Dragon}, an {@link Elf}, or an {@link Orc}, and carries the matching
+ * {@link CreatureKind}. Code that handles a mixed population can switch on the kind, or on its
+ * byte code, instead of testing each class in turn, and can attack without knowing the class
+ * through {@link #attack(Creature)}.
+ * </p>
+ * <p>
+ * Health is updated with compare-and-set, so several threads may damage or heal the same
+ * creature at once without losing updates.
+ * </p>
  *
  * @author Ryan Fiset, Larry Lin
  * @version 1.0
  */
-public class Creature
+public abstract sealed class Creature permits Dragon, Elf, Orc
 {
-    private final static int  MIN_HEALTH      = 0;
-    private final static int  MAX_HEALTH      = 100;
-    private final static int  MIN_DAMAGE      = 0;
-    private final static int  MIN_HEAL_AMOUNT = 1000000;
-    private final static Date NOW;
+    final static int MIN_HEALTH      = 0;
+    final static int MAX_HEALTH      = 100;
+    final static int MIN_DAMAGE      = 0;
+    final static int MIN_HEAL_AMOUNT = 1000000;
+
+    private static final int START_YEAR  = 2025;
+    private static final int START_MONTH = 9;
+    private static final int START_DAY   = 24;
+
+    /**
+     * Whether the attack methods capture stack traces when they throw for lack of resource.
+     * Set the system property {@code ca.bcit.comp2522.lab2.stacklessExceptions} to {@code true}
+     * to turn stack traces off.
+     */
+    final static boolean FILL_STACK_TRACES = !Boolean.getBoolean("ca.bcit.comp2522.lab2.stacklessExceptions");
+
+    private static final VarHandle HEALTH;
+
+    private static volatile CombatEventListener combatEventListener = CombatEventListener.NONE;
+    private static volatile SimulationClock     clock;
+
+    private final    String       name;
+    private final    Date         dateOfBirth;
+    private final    int          birthEpochDay;
+    private final    CreatureKind kind;
+    private volatile int          health;
 
-    private final String name;
-    private final Date   dateOfBirth;
-    private       int    health;
+    // Package-private so that a CreatureRegistry can attach its HealthIndex; the id is written
+    // before the index is published
+    volatile HealthIndex healthIndex;
+    int                  healthIndexId;
+
+    // Package-private so that a CombatJournal can attach itself; the index is written before the
+    // journal is published
+    volatile CombatJournal journal;
+    int                    journalIndex;
 
     static
     {
-        NOW = new Date(2025, 9, 24);
+        clock = new SimulationClock(Date.of(START_YEAR, START_MONTH, START_DAY));
+
+        try
+        {
+            HEALTH = MethodHandles.lookup().findVarHandle(Creature.class, "health", int.class);
+        }
+        catch (final ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
     }
 
     /**
@@ -35,19 +85,23 @@ public class Creature
      * @param dateOfBirth the date of birth of the creature, must not be null or in the future
      * @param health      the initial health of the creature, must be between {@link #MIN_HEALTH} and
      *                    {@link #MAX_HEALTH}
+     * @param kind        the kind of the creature, matching its class
      * @throws IllegalArgumentException if validation of name, dateOfBirth, or health fails
      */
-    public Creature(final String name,
-                    final Date dateOfBirth,
-                    final int health)
+    Creature(final String name,
+             final Date dateOfBirth,
+             final int health,
+             final CreatureKind kind)
     {
         validateName(name);
         validateDate(dateOfBirth);
         validateHealth(health);
 
-        this.name        = name;
-        this.dateOfBirth = dateOfBirth;
-        this.health      = health;
+        this.name          = name;
+        this.dateOfBirth   = dateOfBirth;
+        this.birthEpochDay = dateOfBirth.toEpochDay();
+        this.kind          = kind;
+        this.health        = health;
     }
 
     /**
@@ -56,42 +110,34 @@ public class Creature
      * @param name the name to validate
      * @throws IllegalArgumentException if the name is null or blank
      */
-    private static void validateName(final String name)
+    static void validateName(final String name)
     {
         if (name == null ||
             name.isBlank())
         {
+            CombatMetrics.recordValidationFailure();
             throw new IllegalArgumentException("Name cannot be null or blank");
         }
     }
 
     /**
-     * Validates that the provided date is not null and not in the future.
+     * Validates that the provided date is not null and not after today's date
+     * on the simulation clock.
      *
      * @param date the date to validate
      * @throws IllegalArgumentException if the date is null or in the future
      */
-    private static void validateDate(final Date date)
+    static void validateDate(final Date date)
     {
         if (date == null)
         {
+            CombatMetrics.recordValidationFailure();
             throw new IllegalArgumentException("ca.bcit.comp2522.lab2.Date cannot be null");
         }
 
-        if (date.getYear() > NOW.getYear())
-        {
-            throw new IllegalArgumentException("The provided date must not be in the future.");
-        }
-
-        if (date.getYear() == NOW.getYear() &&
-            date.getMonth() > NOW.getMonth())
-        {
-            throw new IllegalArgumentException("The provided date must not be in the future.");
-        }
-
-        if (date.getMonth() == NOW.getMonth() &&
-            date.getDay() > NOW.getDay())
+        if (date.toEpochDay() > clock.getTodayEpochDay())
         {
+            CombatMetrics.recordValidationFailure();
             throw new IllegalArgumentException("The provided date must not be in the future.");
         }
     }
@@ -102,11 +148,12 @@ public class Creature
      * @param health the health value to validate
      * @throws IllegalArgumentException if health is less than {@link #MIN_HEALTH} or greater than {@link #MAX_HEALTH}
      */
-    private static void validateHealth(final int health)
+    static void validateHealth(final int health)
     {
         if (health < MIN_HEALTH ||
             health > MAX_HEALTH)
         {
+            CombatMetrics.recordValidationFailure();
             throw new IllegalArgumentException("Health must be between " + MIN_HEALTH + " and " + MAX_HEALTH);
         }
     }
@@ -121,6 +168,44 @@ public class Creature
         return name;
     }
 
+    /**
+     * Gets the kind of the creature.
+     *
+     * @return the creature's kind
+     */
+    public final CreatureKind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Gets the resource the creature spends to attack: fire power for a dragon, mana for an elf,
+     * or rage for an orc.
+     *
+     * @return the creature's resource value
+     */
+    public abstract int getResource();
+
+    /**
+     * Attacks a target with the creature's own attack: a dragon breathes fire, an elf casts a
+     * spell, and an orc goes berserk. A lack of resource is reported as an outcome instead of
+     * an exception.
+     *
+     * @param target the creature to attack, must not be null
+     * @return {@link AttackOutcome#SUCCESS} if the attack was made, or
+     *         {@link AttackOutcome#INSUFFICIENT_RESOURCE} if the creature's resource was too low
+     */
+    public abstract AttackOutcome attack(Creature target);
+
+    /**
+     * Attacks a group of targets at once with the creature's own attack, paying for it once.
+     *
+     * @param targets the creatures to attack, must not be null or contain null
+     * @return {@link AttackOutcome#SUCCESS} if the attack was made, or
+     *         {@link AttackOutcome#INSUFFICIENT_RESOURCE} if the creature's resource was too low
+     */
+    public abstract AttackOutcome attack(Collection<? extends Creature> targets);
+
 
     /**
      * Gets the date of birth of the creature.
@@ -144,41 +229,110 @@ public class Creature
 
 
     /**
-     * Calculates the age of the creature in years based on the current date.
+     * Calculates the age of the creature in years based on today's date on the simulation clock.
      *
      * @return the age of the creature in years
      */
     public int getAgeYears()
     {
-        int diff;
+        return clock.ageYears(birthEpochDay);
+    }
+
+    /**
+     * Gets the date of birth of the creature as an epoch day.
+     *
+     * @return the epoch day of the creature's date of birth
+     */
+    public int getBirthEpochDay()
+    {
+        return birthEpochDay;
+    }
+
+    /**
+     * Prints the details of the creature to standard output.
+     * <p>
+     * Details include name, date of birth, age, and health. The details are assembled by
+     * {@link #appendDetails(StringBuilder)} and printed in a single write.
+     * </p>
+     */
+    public void getDetails()
+    {
+        final StringBuilder details;
+        details = new StringBuilder();
+
+        appendDetails(details);
+        System.out.print(details);
+    }
+
+    /**
+     * Appends the details of the creature to a buffer, one detail per line.
+     * <p>
+     * Subclasses add their own details after calling this method.
+     * </p>
+     *
+     * @param details the buffer to append to
+     */
+    protected void appendDetails(final StringBuilder details)
+    {
+        details.append("Name: ").append(name).append(System.lineSeparator());
+        details.append("Date of birth: ");
+        dateOfBirth.appendYYYYMMDD(details).append(System.lineSeparator());
+        details.append("Age: ").append(getAgeYears()).append(System.lineSeparator());
+        details.append("Health: ").append(health).append(System.lineSeparator());
+    }
 
-        diff = NOW.getYear() - dateOfBirth.getYear();
-        if (dateOfBirth.getMonth() > NOW.getMonth())
+    /**
+     * Installs the listener that every creature publishes its combat events to.
+     *
+     * @param listener the listener to install, or {@code null} to stop publishing events
+     */
+    public static void setCombatEventListener(final CombatEventListener listener)
+    {
+        if (listener == null)
+        {
+            combatEventListener = CombatEventListener.NONE;
+        }
+        else
         {
-            diff--;
+            combatEventListener = listener;
         }
+    }
 
-        if (dateOfBirth.getMonth() == NOW.getMonth() &&
-            dateOfBirth.getDay() > NOW.getDay())
+    /**
+     * Installs the clock that supplies today's date for age calculations and for rejecting
+     * dates of birth in the future.
+     *
+     * @param simulationClock the clock to install, must not be null
+     * @throws IllegalArgumentException if the clock is null
+     */
+    public static void setClock(final SimulationClock simulationClock)
+    {
+        if (simulationClock == null)
         {
-            diff--;
+            throw new IllegalArgumentException("Clock cannot be null");
         }
 
-        return diff;
+        clock = simulationClock;
     }
 
     /**
-     * Prints the details of the creature to standard output.
-     * <p>
-     * Details include name, date of birth, age, and health.
-     * </p>
+     * Gets the clock that supplies today's date.
+     *
+     * @return the installed clock
      */
-    public void getDetails()
+    public static SimulationClock getClock()
+    {
+        return clock;
+    }
+
+    /**
+     * Gets the listener that combat events are published to.
+     *
+     * @return the installed listener, never null
+     */
+    static CombatEventListener getCombatEventListener()
     {
-        System.out.println("Name: " + name);
-        System.out.println("Date of birth: " + dateOfBirth.getYYYYMMDD());
-        System.out.println("Age: " + getAgeYears());
-        System.out.println("Health: " + health);
+        return combatEventListener;
     }
 
     /**
@@ -203,20 +357,86 @@ public class Creature
      */
     public void takeDamage(final int damage)
     {
+        dealDamage(damage);
+    }
+
+    /**
+     * Applies damage to the creature the way {@link #takeDamage(int)} does, and reports whether
+     * this damage is what killed it.
+     *
+     * @param damage the amount of damage to apply, must be non-negative
+     * @return {@code true} if the creature was alive before the damage and dead after it,
+     *         {@code false} if it survived or was already dead
+     * @throws DamageException if the damage amount is negative
+     */
+    final boolean dealDamage(final int damage)
+    {
+        final long start;
+        final int  current;
+        final int  updated;
+
+        start   = CombatMetrics.startTimer();
+        current = changeHealth(CombatJournal.OP_DAMAGE, damage);
+        updated = damagedHealth(current, damage);
+
+        indexHealthChange(current, updated);
+        CombatMetrics.recordHealthChange(CombatMetrics.Operation.TAKE_DAMAGE, start);
+        return isKill(current, updated);
+    }
+
+
+    /**
+     * Deals the same damage to every target of an area attack that has already been paid for,
+     * publishing one attack event per target.
+     * <p>
+     * The damage is validated once for the whole attack, and the listener is only called when
+     * one is installed.
+     * </p>
+     *
+     * @param action            the action used, one of the {@link CombatEngine} {@code ACTION_} constants
+     * @param targets           the creatures to damage, must not contain null
+     * @param damage            the damage dealt to each target, must be non-negative
+     * @param remainingResource the attacker's resource after paying for the attack
+     * @throws DamageException if the damage amount is negative
+     */
+    final void strikeAll(final byte action,
+                         final Collection<? extends Creature> targets,
+                         final int damage,
+                         final int remainingResource)
+    {
+        final CombatEventListener listener;
+
         if (damage < MIN_DAMAGE)
         {
             throw new DamageException("Damage must not be less than " + MIN_DAMAGE);
         }
 
-        health -= damage;
+        listener = getCombatEventListener();
 
-        if (health <= MIN_HEALTH)
+        for (final Creature target : targets)
         {
-            health = MIN_HEALTH;
+            final int     current;
+            final int     updated;
+            final boolean killed;
+
+            current = target.changeHealth(CombatJournal.OP_DAMAGE, damage);
+            updated = Math.max(current - damage, MIN_HEALTH);
+
+            target.indexHealthChange(current, updated);
+            killed = isKill(current, updated);
+
+            if (killed)
+            {
+                CombatMetrics.recordKill();
+            }
+
+            if (listener != CombatEventListener.NONE)
+            {
+                listener.onAttack(this, action, target, damage, remainingResource, killed);
+            }
         }
     }
 
-
     /**
      * Heals the creature by increasing its health.
      * <p>
@@ -228,16 +448,183 @@ public class Creature
      */
     public void heal(final int healAmount)
     {
+        final long start;
+        final int  current;
+        final int  updated;
+
+        start   = CombatMetrics.startTimer();
+        current = changeHealth(CombatJournal.OP_HEAL, healAmount);
+        updated = healedHealth(current, healAmount);
+
+        indexHealthChange(current, updated);
+        CombatMetrics.recordHealthChange(CombatMetrics.Operation.HEAL, start);
+    }
+
+    /**
+     * Damages or heals the creature with compare-and-set. If a journal is attached, the change
+     * is made and recorded while holding the creature's own lock, so the creature's records are
+     * in the order its changes were made while other creatures change in parallel.
+     *
+     * @param op     {@link CombatJournal#OP_DAMAGE} or {@link CombatJournal#OP_HEAL}
+     * @param amount the damage or healing
+     * @return the health before the change
+     * @throws DamageException  if the damage is negative
+     * @throws HealingException if the healing is less than {@link #MIN_HEAL_AMOUNT}
+     */
+    private int changeHealth(final byte op,
+                             final int amount)
+    {
+        final CombatJournal attached;
+        attached = journal;
+
+        if (attached == null)
+        {
+            return compareAndSetHealth(op, amount);
+        }
+
+        synchronized (this)
+        {
+            final int previous;
+            previous = compareAndSetHealth(op, amount);
+
+            attached.record(op, journalIndex, amount, changedHealth(op, previous, amount));
+            return previous;
+        }
+    }
+
+    /**
+     * Damages or heals the creature with compare-and-set, retrying until no other change
+     * intervenes.
+     *
+     * @param op     {@link CombatJournal#OP_DAMAGE} or {@link CombatJournal#OP_HEAL}
+     * @param amount the damage or healing
+     * @return the health before the change
+     * @throws DamageException  if the damage is negative
+     * @throws HealingException if the healing is less than {@link #MIN_HEAL_AMOUNT}
+     */
+    private int compareAndSetHealth(final byte op,
+                                    final int amount)
+    {
+        int current;
+
+        do
+        {
+            current = health;
+        }
+        while (!HEALTH.compareAndSet(this, current, changedHealth(op, current, amount)));
+
+        return current;
+    }
+
+    /**
+     * Computes the health that results from damaging or healing a health value.
+     *
+     * @param op     {@link CombatJournal#OP_DAMAGE} or {@link CombatJournal#OP_HEAL}
+     * @param health the health before the change
+     * @param amount the damage or healing
+     * @return the health after the change
+     * @throws DamageException  if the damage is negative
+     * @throws HealingException if the healing is less than {@link #MIN_HEAL_AMOUNT}
+     */
+    private static int changedHealth(final byte op,
+                                     final int health,
+                                     final int amount)
+    {
+        return op == CombatJournal.OP_DAMAGE ? damagedHealth(health, amount) : healedHealth(health, amount);
+    }
+
+    /**
+     * Checks whether a change of health is the one that killed a creature. A creature that was
+     * already dead is not killed again.
+     *
+     * @param oldHealth the health before the change
+     * @param newHealth the health after the change
+     * @return {@code true} if the creature was alive before the change and dead after it
+     */
+    private static boolean isKill(final int oldHealth,
+                                  final int newHealth)
+    {
+        return oldHealth > MIN_HEALTH && newHealth == MIN_HEALTH;
+    }
+
+    /**
+     * Tells the health index this creature is registered with, if any, about a change of health
+     * that has just been made.
+     *
+     * @param oldHealth the health before the change
+     * @param newHealth the health after the change
+     */
+    private void indexHealthChange(final int oldHealth,
+                                   final int newHealth)
+    {
+        final HealthIndex index;
+        index = healthIndex;
+
+        if (index != null && oldHealth != newHealth)
+        {
+            index.onHealthChanged(this, healthIndexId, oldHealth, newHealth);
+        }
+    }
+
+    /**
+     * Computes the health that results from applying damage to the given health value.
+     * <p>
+     * Shared by {@link #takeDamage(int)} and the array-backed {@link CreatureStore} so both
+     * apply the same validation and clamping rules.
+     * </p>
+     *
+     * @param health the current health
+     * @param damage the amount of damage to apply, must be non-negative
+     * @return the new health, never below {@link #MIN_HEALTH}
+     * @throws DamageException if the damage amount is negative
+     */
+    static int damagedHealth(final int health,
+                             final int damage)
+    {
+        final int result;
+
+        if (damage < MIN_DAMAGE)
+        {
+            throw new DamageException("Damage must not be less than " + MIN_DAMAGE);
+        }
+
+        result = health - damage;
+
+        if (result <= MIN_HEALTH)
+        {
+            return MIN_HEALTH;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the health that results from healing the given health value.
+     * <p>
+     * Shared by {@link #heal(int)} and the array-backed {@link CreatureStore} so both
+     * apply the same validation and clamping rules.
+     * </p>
+     *
+     * @param health     the current health
+     * @param healAmount the amount to heal
+     * @return the new health, never above {@link #MAX_HEALTH}
+     * @throws HealingException if the healing amount is below {@link #MIN_HEAL_AMOUNT}
+     */
+    static int healedHealth(final int health,
+                            final int healAmount)
+    {
+        final int result;
+
         if (healAmount < MIN_HEAL_AMOUNT)
         {
             throw new HealingException("Healing must not be less than " + MIN_HEAL_AMOUNT);
         }
 
-        health += healAmount;
+        result = health + healAmount;
 
-        if (health > MAX_HEALTH)
+        if (result > MAX_HEALTH)
         {
-            health = MAX_HEALTH;
+            return MAX_HEALTH;
         }
+        return result;
     }
 }
\ No newline at end of file
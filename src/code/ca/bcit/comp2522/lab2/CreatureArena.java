@@ -0,0 +1,578 @@
+package ca.bcit.comp2522.lab2;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Stores creature state off the Java heap in a direct {@link ByteBuffer} of fixed-size records.
+ * <p>
+ * Each record holds the creature's kind, an index into a shared name table, its packed date of
+ * birth, its health, and the resource of its kind (fire power, mana, or rage). The buffer is
+ * allocated once at construction, so the heap footprint does not grow with the population and
+ * the garbage collector never has to trace individual creatures. Released records are chained
+ * into a free list and reused by later allocations.
+ * </p>
+ * <p>
+ * Names are kept on the heap in a table shared by all records, so creatures with the same name
+ * cost one string between them. Each name counts the records using it and is dropped when the
+ * last of them is released, so the heap holds only the names of live creatures however many
+ * come and go. Names are found through an open-addressing hash table of name ids with linear
+ * probing, like the one in {@link CreatureRegistry}, so no key is ever boxed.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class CreatureArena
+{
+    // --- Record layout, in bytes ---
+    private static final int KIND_OFFSET       = 0;
+    private static final int NAME_OFFSET       = 4;
+    private static final int BIRTH_DATE_OFFSET = 8;
+    private static final int HEALTH_OFFSET     = 12;
+    private static final int RESOURCE_OFFSET   = 16;
+    private static final int RECORD_SIZE       = 20;
+
+    // --- Free list markers ---
+    private static final byte FREE_KIND   = -1;
+    private static final int  NEXT_OFFSET = NAME_OFFSET;
+    private static final int  END_OF_LIST = -1;
+
+    private static final int MIN_CAPACITY = 1;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD_SIZE;
+
+    // --- Name table ---
+    private static final int EMPTY                 = -1;
+    private static final int DEFAULT_NAME_CAPACITY = 16;
+    private static final int GROWTH_FACTOR         = 2;
+    private static final int MAX_LOAD_DIVISOR      = 2; // The table is kept at most half full
+    private static final int HASH_SHIFT            = 16;
+
+    private final ByteBuffer records;
+    private final int        capacity;
+
+    private String[] names;
+    private int[]    nameHashes;
+    private int[]    nameReferences;
+    private int[]    freeNameIds;
+    private int[]    nameTable;
+    private int      nameIdsUsed;
+    private int      freeNameCount;
+    private int      nameCount;
+
+    private int freeHead;
+    private int highWaterMark;
+    private int size;
+
+    /**
+     * Constructs a new {@code CreatureArena} with room for the given number of creatures.
+     *
+     * @param capacity the maximum number of live creatures, must be positive
+     * @throws IllegalArgumentException if the capacity is not positive or too large for one buffer
+     */
+    public CreatureArena(final int capacity)
+    {
+        if (capacity < MIN_CAPACITY ||
+            capacity > MAX_CAPACITY)
+        {
+            throw new IllegalArgumentException("Capacity must be between " + MIN_CAPACITY + " and " + MAX_CAPACITY);
+        }
+
+        this.capacity = capacity;
+        this.records  = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+
+        names          = new String[DEFAULT_NAME_CAPACITY];
+        nameHashes     = new int[DEFAULT_NAME_CAPACITY];
+        nameReferences = new int[DEFAULT_NAME_CAPACITY];
+        freeNameIds    = new int[DEFAULT_NAME_CAPACITY];
+        nameTable      = emptyTable(DEFAULT_NAME_CAPACITY * MAX_LOAD_DIVISOR);
+        nameIdsUsed    = 0;
+        freeNameCount  = 0;
+        nameCount      = 0;
+
+        freeHead      = END_OF_LIST;
+        highWaterMark = 0;
+        size          = 0;
+    }
+
+    /**
+     * Allocates a record for a new creature, validating its attributes with the same rules as the
+     * {@link Dragon}, {@link Elf}, and {@link Orc} constructors.
+     *
+     * @param kind        the kind of creature, a {@link CreatureKind} code
+     * @param name        the name of the creature, must not be null or blank
+     * @param dateOfBirth the date of birth of the creature, must not be null or in the future
+     * @param health      the initial health of the creature
+     * @param resource    the initial fire power, mana, or rage, depending on the kind
+     * @return the handle of the new record
+     * @throws IllegalArgumentException if the kind is unknown or any attribute is invalid
+     * @throws IllegalStateException    if every record is in use
+     */
+    public int allocate(final byte kind,
+                        final String name,
+                        final Date dateOfBirth,
+                        final int health,
+                        final int resource)
+    {
+        final int handle;
+        final int base;
+
+        Creature.validateName(name);
+        Creature.validateDate(dateOfBirth);
+        Creature.validateHealth(health);
+        CreatureStore.validateResource(kind, resource);
+
+        if (freeHead != END_OF_LIST)
+        {
+            handle   = freeHead;
+            freeHead = records.getInt(handle * RECORD_SIZE + NEXT_OFFSET);
+        }
+        else if (highWaterMark < capacity)
+        {
+            handle = highWaterMark;
+            highWaterMark++;
+        }
+        else
+        {
+            throw new IllegalStateException("Arena is full at " + capacity + " creatures");
+        }
+
+        base = handle * RECORD_SIZE;
+        records.put(base + KIND_OFFSET, kind);
+        records.putInt(base + NAME_OFFSET, acquireName(name));
+        records.putInt(base + BIRTH_DATE_OFFSET, dateOfBirth.toPackedInt());
+        records.putInt(base + HEALTH_OFFSET, health);
+        records.putInt(base + RESOURCE_OFFSET, resource);
+
+        size++;
+        return handle;
+    }
+
+    /**
+     * Releases the record behind a handle so that it can be reused by a later allocation. The
+     * record's name is dropped from the name table if no other record uses it.
+     *
+     * @param handle the handle of a live record
+     * @throws IllegalArgumentException if the handle does not refer to a live record
+     */
+    public void release(final int handle)
+    {
+        final int base;
+
+        base = checkHandle(handle);
+        releaseName(records.getInt(base + NAME_OFFSET));
+
+        records.put(base + KIND_OFFSET, FREE_KIND);
+        records.putInt(base + NEXT_OFFSET, freeHead);
+        freeHead = handle;
+
+        size--;
+    }
+
+    /**
+     * Looks up the id of a name for a new record, adding the name if no record uses it yet, and
+     * counts the new record as using it.
+     *
+     * @param name the name to look up
+     * @return the name's id
+     */
+    private int acquireName(final String name)
+    {
+        final int hash;
+        final int slot;
+        final int id;
+
+        hash = hash(name);
+        slot = nameSlotOf(name, hash);
+
+        if (slot != EMPTY)
+        {
+            id = nameTable[slot];
+            nameReferences[id]++;
+            return id;
+        }
+
+        if (freeNameCount > 0)
+        {
+            freeNameCount--;
+            id = freeNameIds[freeNameCount];
+        }
+        else
+        {
+            if (nameIdsUsed == names.length)
+            {
+                growNames();
+            }
+            id = nameIdsUsed;
+            nameIdsUsed++;
+        }
+
+        // Grow the table before the name is stored, as a rehash places every stored name
+        if ((nameCount + 1) * MAX_LOAD_DIVISOR > nameTable.length)
+        {
+            rehashNames(nameTable.length * GROWTH_FACTOR);
+        }
+
+        names[id]          = name;
+        nameHashes[id]     = hash;
+        nameReferences[id] = 1;
+        insertName(id);
+        nameCount++;
+        return id;
+    }
+
+    /**
+     * Counts a released record as no longer using a name, and drops the name from the table
+     * and frees its id if no other record uses it.
+     *
+     * @param id the name's id
+     */
+    private void releaseName(final int id)
+    {
+        final int mask;
+        int       slot;
+        int       hole;
+
+        nameReferences[id]--;
+        if (nameReferences[id] > 0)
+        {
+            return;
+        }
+
+        mask = nameTable.length - 1;
+        slot = nameHashes[id] & mask;
+
+        while (nameTable[slot] != id)
+        {
+            slot = (slot + 1) & mask;
+        }
+
+        // Shift later entries of the probe run back into the hole, unless that would move an
+        // entry before its home slot
+        hole = slot;
+        slot = (slot + 1) & mask;
+
+        while (nameTable[slot] != EMPTY)
+        {
+            final int home;
+            home = nameHashes[nameTable[slot]] & mask;
+
+            if (((slot - home) & mask) >= ((slot - hole) & mask))
+            {
+                nameTable[hole] = nameTable[slot];
+                hole            = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        nameTable[hole] = EMPTY;
+
+        names[id]                  = null;
+        freeNameIds[freeNameCount] = id;
+        freeNameCount++;
+        nameCount--;
+    }
+
+    /**
+     * Finds the table slot holding the id of a name.
+     *
+     * @param name the name to find
+     * @param hash the hash of the name
+     * @return the slot, or {@link #EMPTY} if no record uses the name
+     */
+    private int nameSlotOf(final String name,
+                           final int hash)
+    {
+        final int mask;
+        int       slot;
+
+        mask = nameTable.length - 1;
+        slot = hash & mask;
+
+        while (nameTable[slot] != EMPTY)
+        {
+            final int id;
+            id = nameTable[slot];
+
+            if (nameHashes[id] == hash && names[id].equals(name))
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Adds a name id to the table, which must have room for it.
+     *
+     * @param id the id to add, whose name and hash are already set
+     */
+    private void insertName(final int id)
+    {
+        final int mask;
+        int       slot;
+
+        mask = nameTable.length - 1;
+        slot = nameHashes[id] & mask;
+
+        while (nameTable[slot] != EMPTY)
+        {
+            slot = (slot + 1) & mask;
+        }
+        nameTable[slot] = id;
+    }
+
+    /**
+     * Rebuilds the name table at a new length.
+     *
+     * @param length the new length, a power of two
+     */
+    private void rehashNames(final int length)
+    {
+        nameTable = emptyTable(length);
+
+        for (int id = 0; id < nameIdsUsed; id++)
+        {
+            if (names[id] != null)
+            {
+                insertName(id);
+            }
+        }
+    }
+
+    /**
+     * Grows the per-name arrays by {@link #GROWTH_FACTOR}.
+     */
+    private void growNames()
+    {
+        final int newCapacity;
+        newCapacity = names.length * GROWTH_FACTOR;
+
+        names          = Arrays.copyOf(names, newCapacity);
+        nameHashes     = Arrays.copyOf(nameHashes, newCapacity);
+        nameReferences = Arrays.copyOf(nameReferences, newCapacity);
+        freeNameIds    = Arrays.copyOf(freeNameIds, newCapacity);
+    }
+
+    /**
+     * Creates a name table with every slot empty.
+     *
+     * @param length the table length, a power of two
+     * @return the table
+     */
+    private static int[] emptyTable(final int length)
+    {
+        final int[] empty;
+        empty = new int[length];
+
+        Arrays.fill(empty, EMPTY);
+        return empty;
+    }
+
+    /**
+     * Hashes a name, mixing the high bits into the low bits used to pick a slot.
+     *
+     * @param name the name
+     * @return the hash
+     */
+    private static int hash(final String name)
+    {
+        final int hash;
+        hash = name.hashCode();
+
+        return hash ^ (hash >>> HASH_SHIFT);
+    }
+
+    /**
+     * Validates that a handle refers to a live record and returns the record's byte offset.
+     *
+     * @param handle the handle to check
+     * @return the byte offset of the record
+     * @throws IllegalArgumentException if the handle does not refer to a live record
+     */
+    private int checkHandle(final int handle)
+    {
+        final int base;
+
+        if (handle < 0 || handle >= highWaterMark)
+        {
+            throw new IllegalArgumentException("Handle " + handle + " is not in the arena");
+        }
+
+        base = handle * RECORD_SIZE;
+        if (records.get(base + KIND_OFFSET) == FREE_KIND)
+        {
+            throw new IllegalArgumentException("Handle " + handle + " has been released");
+        }
+        return base;
+    }
+
+    /**
+     * Gets the number of live creatures in the arena.
+     *
+     * @return the number of allocated records
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of creatures the arena can hold.
+     *
+     * @return the capacity in records
+     */
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Gets the kind of the creature behind a handle.
+     *
+     * @param handle the creature's handle
+     * @return the creature's kind
+     */
+    public byte getKind(final int handle)
+    {
+        return records.get(checkHandle(handle) + KIND_OFFSET);
+    }
+
+    /**
+     * Gets the name of the creature behind a handle.
+     *
+     * @param handle the creature's handle
+     * @return the creature's name
+     */
+    public String getName(final int handle)
+    {
+        return names[records.getInt(checkHandle(handle) + NAME_OFFSET)];
+    }
+
+    /**
+     * Gets the date of birth of the creature behind a handle in its packed form.
+     *
+     * @param handle the creature's handle
+     * @return the packed date of birth
+     */
+    public int getPackedBirthDate(final int handle)
+    {
+        return records.getInt(checkHandle(handle) + BIRTH_DATE_OFFSET);
+    }
+
+    /**
+     * Gets the date of birth of the creature behind a handle.
+     *
+     * @param handle the creature's handle
+     * @return the creature's date of birth
+     */
+    public Date getDateOfBirth(final int handle)
+    {
+        return Date.fromPackedInt(getPackedBirthDate(handle));
+    }
+
+    /**
+     * Gets the current health of the creature behind a handle.
+     *
+     * @param handle the creature's handle
+     * @return the creature's health
+     */
+    public int getHealth(final int handle)
+    {
+        return records.getInt(checkHandle(handle) + HEALTH_OFFSET);
+    }
+
+    /**
+     * Gets the fire power, mana, or rage of the creature behind a handle.
+     *
+     * @param handle the creature's handle
+     * @return the creature's resource value
+     */
+    public int getResource(final int handle)
+    {
+        return records.getInt(checkHandle(handle) + RESOURCE_OFFSET);
+    }
+
+    /**
+     * Sets the fire power, mana, or rage of the creature behind a handle.
+     *
+     * @param handle   the creature's handle
+     * @param resource the new resource value, validated against the creature's kind
+     * @throws IllegalArgumentException if the resource is out of range for the creature's kind
+     */
+    public void setResource(final int handle,
+                            final int resource)
+    {
+        final int base;
+
+        base = checkHandle(handle);
+        CreatureStore.validateResource(records.get(base + KIND_OFFSET), resource);
+        records.putInt(base + RESOURCE_OFFSET, resource);
+    }
+
+    /**
+     * Checks if the creature behind a handle is alive.
+     *
+     * @param handle the creature's handle
+     * @return {@code true} if the creature's health is greater than {@link Creature#MIN_HEALTH}
+     */
+    public boolean isAlive(final int handle)
+    {
+        return getHealth(handle) > Creature.MIN_HEALTH;
+    }
+
+    /**
+     * Applies damage to the creature behind a handle, with the same rules as
+     * {@link Creature#takeDamage(int)}.
+     *
+     * @param handle the creature's handle
+     * @param damage the amount of damage to apply, must be non-negative
+     * @throws DamageException if the damage amount is negative
+     */
+    public void takeDamage(final int handle,
+                           final int damage)
+    {
+        final int offset;
+
+        offset = checkHandle(handle) + HEALTH_OFFSET;
+        records.putInt(offset, Creature.damagedHealth(records.getInt(offset), damage));
+    }
+
+    /**
+     * Heals the creature behind a handle, with the same rules as {@link Creature#heal(int)}.
+     *
+     * @param handle     the creature's handle
+     * @param healAmount the amount to heal
+     * @throws HealingException if the healing amount is invalid
+     */
+    public void heal(final int handle,
+                     final int healAmount)
+    {
+        final int offset;
+
+        offset = checkHandle(handle) + HEALTH_OFFSET;
+        records.putInt(offset, Creature.healedHealth(records.getInt(offset), healAmount));
+    }
+
+    /**
+     * Counts the live creatures in the arena that are alive.
+     *
+     * @return the number of allocated creatures with health greater than {@link Creature#MIN_HEALTH}
+     */
+    public int countAlive()
+    {
+        int alive;
+        alive = 0;
+
+        for (int base = 0; base < highWaterMark * RECORD_SIZE; base += RECORD_SIZE)
+        {
+            if (records.get(base + KIND_OFFSET) != FREE_KIND &&
+                records.getInt(base + HEALTH_OFFSET) > Creature.MIN_HEALTH)
+            {
+                alive++;
+            }
+        }
+        return alive;
+    }
+}
@@ -0,0 +1,192 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates reproducible populations of dragons, elves, and orcs from a seed.
+ * <p>
+ * Every creature is derived only from the seed and its position in the population, so the
+ * same seed always produces the same creatures, and creature {@code i} is the same however many
+ * creatures are generated. Each creature gets a random kind, a random valid date of birth up to
+ * today on the {@link Creature#getClock() simulation clock}, a living health, and a resource
+ * anywhere in its kind's valid range.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class CreatureGenerator
+{
+    private static final int  KIND_COUNT       = CreatureKind.values().length;
+    private static final int  MIN_LIVING       = Creature.MIN_HEALTH + 1;
+    private static final int  MIN_COUNT        = 0;
+    private static final long INDEX_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static final String[] KIND_NAMES = {"Dragon", "Elf", "Orc"};
+
+    private final long seed;
+
+    /**
+     * Constructs a new {@code CreatureGenerator}.
+     *
+     * @param seed the seed that determines every generated creature
+     */
+    public CreatureGenerator(final long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates a population of creatures.
+     *
+     * @param count the number of creatures to generate, must not be negative
+     * @return the generated creatures, in order
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public List<Creature> generate(final int count)
+    {
+        final List<Creature> population;
+
+        validateCount(count);
+        population = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            population.add(generate(i, random(i)));
+        }
+        return population;
+    }
+
+    /**
+     * Generates a population of creatures straight into a store, without creating creature objects.
+     *
+     * @param store the store to add the creatures to, must not be null
+     * @param count the number of creatures to generate, must not be negative
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public void generateInto(final CreatureStore store,
+                             final int count)
+    {
+        validateCount(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            final SplittableRandom random;
+            final byte             kind;
+
+            random = random(i);
+            kind   = (byte) random.nextInt(KIND_COUNT);
+
+            store.add(kind,
+                      nameOf(kind, i),
+                      dateOfBirth(random),
+                      random.nextInt(MIN_LIVING, Creature.MAX_HEALTH + 1),
+                      resource(kind, random));
+        }
+    }
+
+    /**
+     * Generates the creature at a position in the population.
+     *
+     * @param index  the creature's position
+     * @param random the random stream for that position
+     * @return the creature
+     */
+    private static Creature generate(final int index,
+                                     final SplittableRandom random)
+    {
+        final byte   kind;
+        final String name;
+        final Date   dateOfBirth;
+        final int    health;
+        final int    resource;
+
+        kind        = (byte) random.nextInt(KIND_COUNT);
+        name        = nameOf(kind, index);
+        dateOfBirth = dateOfBirth(random);
+        health      = random.nextInt(MIN_LIVING, Creature.MAX_HEALTH + 1);
+        resource    = resource(kind, random);
+
+        switch (kind)
+        {
+            case CreatureKind.DRAGON_CODE:
+                return new Dragon(name, dateOfBirth, health, resource);
+            case CreatureKind.ELF_CODE:
+                return new Elf(name, dateOfBirth, health, resource);
+            default:
+                return new Orc(name, dateOfBirth, health, resource);
+        }
+    }
+
+    /**
+     * Creates the random stream for a position in the population.
+     *
+     * @param index the position
+     * @return a stream determined by the seed and the position alone
+     */
+    private SplittableRandom random(final int index)
+    {
+        return new SplittableRandom(seed ^ index * INDEX_MULTIPLIER);
+    }
+
+    /**
+     * Builds the name of a generated creature from its kind and position.
+     *
+     * @param kind  the creature's kind
+     * @param index the creature's position
+     * @return the name
+     */
+    private static String nameOf(final byte kind,
+                                 final int index)
+    {
+        return KIND_NAMES[kind] + "-" + index;
+    }
+
+    /**
+     * Picks a date of birth between the earliest valid date and today.
+     *
+     * @param random the random stream to draw from
+     * @return the shared date
+     */
+    private static Date dateOfBirth(final SplittableRandom random)
+    {
+        return Date.ofEpochDay(random.nextInt(Date.MIN_EPOCH_DAY, Creature.getClock().getTodayEpochDay() + 1));
+    }
+
+    /**
+     * Picks a resource value within the valid range for a kind.
+     *
+     * @param kind   the creature's kind
+     * @param random the random stream to draw from
+     * @return the fire power, mana, or rage
+     */
+    private static int resource(final byte kind,
+                                final SplittableRandom random)
+    {
+        switch (kind)
+        {
+            case CreatureKind.DRAGON_CODE:
+                return random.nextInt(Dragon.MIN_FIRE_POWER, Dragon.MAX_FIRE_POWER + 1);
+            case CreatureKind.ELF_CODE:
+                return random.nextInt(Elf.MIN_MANA, Elf.MAX_MANA + 1);
+            default:
+                return random.nextInt(Orc.MIN_RAGE, Orc.MAX_RAGE + 1);
+        }
+    }
+
+    /**
+     * Validates a population size.
+     *
+     * @param count the number of creatures requested
+     * @throws IllegalArgumentException if the count is negative
+     */
+    private static void validateCount(final int count)
+    {
+        if (count < MIN_COUNT)
+        {
+            throw new IllegalArgumentException("Count must not be negative");
+        }
+    }
+}
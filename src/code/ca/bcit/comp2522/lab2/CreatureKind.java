@@ -0,0 +1,76 @@
+package ca.bcit.comp2522.lab2;
+
+/**
+ * The kinds of {@link Creature}, each with a one-byte code.
+ * <p>
+ * The code is what the primitive stores such as {@link CreatureStore} and {@link CreatureArena}
+ * keep per creature, and the {@code _CODE} constants can be used as {@code case} labels when a
+ * loop switches on a code directly. Every creature knows its kind through
+ * {@link Creature#getKind()}, so a mixed population can be split into one group per kind and each
+ * group handled by code that only ever sees one class.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public enum CreatureKind
+{
+    /**
+     * A {@link Dragon}, whose resource is fire power.
+     */
+    DRAGON(CreatureKind.DRAGON_CODE),
+
+    /**
+     * An {@link Elf}, whose resource is mana.
+     */
+    ELF(CreatureKind.ELF_CODE),
+
+    /**
+     * An {@link Orc}, whose resource is rage.
+     */
+    ORC(CreatureKind.ORC_CODE);
+
+    public static final byte DRAGON_CODE = 0;
+    public static final byte ELF_CODE    = 1;
+    public static final byte ORC_CODE    = 2;
+
+    private static final CreatureKind[] BY_CODE = values();
+
+    private final byte code;
+
+    /**
+     * Constructs a {@code CreatureKind} with its code.
+     *
+     * @param code the kind's code, equal to its position in {@link #values()}
+     */
+    CreatureKind(final byte code)
+    {
+        this.code = code;
+    }
+
+    /**
+     * Gets the one-byte code of this kind.
+     *
+     * @return the code
+     */
+    public byte getCode()
+    {
+        return code;
+    }
+
+    /**
+     * Looks up the kind with a code.
+     *
+     * @param code the code
+     * @return the kind
+     * @throws IllegalArgumentException if no kind has the code
+     */
+    public static CreatureKind ofCode(final byte code)
+    {
+        if (code < 0 || code >= BY_CODE.length)
+        {
+            throw new IllegalArgumentException("Unknown creature kind " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,766 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Gives every registered creature a dense int id and finds creatures by id or by name in
+ * constant time.
+ * <p>
+ * Creatures are kept in an array indexed by id. Names are indexed in an open-addressing hash
+ * table of ids with linear probing, so a lookup hashes the name once and compares it only with
+ * the names that share its probe run, and no key is ever boxed. Removal shifts the rest of the
+ * probe run back instead of leaving tombstones, so lookups stay short however many creatures
+ * come and go.
+ * </p>
+ * <p>
+ * Ids of removed creatures are reused by later registrations, so ids stay dense and can index
+ * other arrays directly. {@link #reapDead()} removes every dead creature at once to free their
+ * ids and names.
+ * </p>
+ * <p>
+ * The registry also keeps a {@link HealthIndex} of its creatures, updated by the creatures as
+ * they take damage and heal, so the living creatures, the living creatures below a health, and
+ * the number alive of each kind are found without looking at every creature. A
+ * {@link BirthDateIndex} keeps each kind sorted by date of birth, so the creatures born in a range
+ * of dates, and the oldest or youngest of a kind, are found with binary searches.
+ * </p>
+ * <p>
+ * The registry is safe to use from many threads. Lookups share a read lock and run in
+ * parallel; registration and removal take the write lock.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class CreatureRegistry
+{
+    /**
+     * The id returned by name lookups when no creature has the name.
+     */
+    public static final int NO_ID = -1;
+
+    private static final int EMPTY            = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int GROWTH_FACTOR    = 2;
+    private static final int MAX_LOAD_DIVISOR = 2; // The table is kept at most half full
+    private static final int HASH_SHIFT       = 16;
+
+    private final Lock           readLock;
+    private final Lock           writeLock;
+    private final HealthIndex    healthIndex;
+    private final BirthDateIndex birthDateIndex;
+
+    private Creature[] creatures;
+    private int[]      hashes;
+    private int[]      freeIds;
+    private int[]      table;
+    private int        idsUsed;
+    private int        freeCount;
+    private int        size;
+
+    /**
+     * Constructs an empty {@code CreatureRegistry}.
+     */
+    public CreatureRegistry()
+    {
+        final ReentrantReadWriteLock lock;
+        lock = new ReentrantReadWriteLock();
+
+        readLock       = lock.readLock();
+        writeLock      = lock.writeLock();
+        healthIndex    = new HealthIndex();
+        birthDateIndex = new BirthDateIndex();
+
+        creatures = new Creature[DEFAULT_CAPACITY];
+        hashes    = new int[DEFAULT_CAPACITY];
+        freeIds   = new int[DEFAULT_CAPACITY];
+        table     = emptyTable(DEFAULT_CAPACITY * MAX_LOAD_DIVISOR);
+        idsUsed   = 0;
+        freeCount = 0;
+        size      = 0;
+    }
+
+    /**
+     * Registers a creature under its name.
+     *
+     * @param creature the creature to register, must not be null
+     * @return the id assigned to the creature
+     * @throws IllegalArgumentException if the creature is null or already registered here or in
+     *                                  another registry, or a creature with the same name is
+     *                                  already registered
+     */
+    public int register(final Creature creature)
+    {
+        final int hash;
+        final int id;
+
+        if (creature == null)
+        {
+            throw new IllegalArgumentException("Creature cannot be null");
+        }
+        hash = hash(creature.getName());
+
+        writeLock.lock();
+        try
+        {
+            if (creature.healthIndex != null)
+            {
+                throw new IllegalArgumentException("Creature " + creature.getName() + " is already registered");
+            }
+
+            if (slotOf(creature.getName(), hash) != EMPTY)
+            {
+                throw new IllegalArgumentException("A creature named " + creature.getName() + " is already registered");
+            }
+
+            if (freeCount > 0)
+            {
+                freeCount--;
+                id = freeIds[freeCount];
+            }
+            else
+            {
+                if (idsUsed == creatures.length)
+                {
+                    grow();
+                }
+                id = idsUsed;
+                idsUsed++;
+            }
+
+            // Grow the table before the creature is stored, as a rehash places every stored creature
+            if ((size + 1) * MAX_LOAD_DIVISOR > table.length)
+            {
+                rehash(table.length * GROWTH_FACTOR);
+            }
+
+            creatures[id] = creature;
+            hashes[id]    = hash;
+            insert(id);
+            healthIndex.add(creature, id);
+            birthDateIndex.add(creature, id);
+
+            size++;
+            return id;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the creature with an id.
+     *
+     * @param id the creature's id
+     * @return the creature, or null if no creature has the id
+     */
+    public Creature get(final int id)
+    {
+        readLock.lock();
+        try
+        {
+            return id >= 0 && id < idsUsed ? creatures[id] : null;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the creature with a name.
+     *
+     * @param name the creature's name, must not be null
+     * @return the creature, or null if no creature has the name
+     * @throws IllegalArgumentException if the name is null
+     */
+    public Creature get(final String name)
+    {
+        final int hash;
+        hash = hash(validateName(name));
+
+        readLock.lock();
+        try
+        {
+            final int slot;
+            slot = slotOf(name, hash);
+
+            return slot == EMPTY ? null : creatures[table[slot]];
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the id of the creature with a name.
+     *
+     * @param name the creature's name, must not be null
+     * @return the creature's id, or {@link #NO_ID} if no creature has the name
+     * @throws IllegalArgumentException if the name is null
+     */
+    public int getId(final String name)
+    {
+        final int hash;
+        hash = hash(validateName(name));
+
+        readLock.lock();
+        try
+        {
+            final int slot;
+            slot = slotOf(name, hash);
+
+            return slot == EMPTY ? NO_ID : table[slot];
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the creature with an id, freeing the id and name for reuse.
+     *
+     * @param id the creature's id
+     * @return {@code true} if a creature was removed
+     */
+    public boolean remove(final int id)
+    {
+        writeLock.lock();
+        try
+        {
+            if (id < 0 || id >= idsUsed || creatures[id] == null)
+            {
+                return false;
+            }
+            release(id);
+            return true;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the creature with a name, freeing its id and the name for reuse.
+     *
+     * @param name the creature's name, must not be null
+     * @return {@code true} if a creature was removed
+     * @throws IllegalArgumentException if the name is null
+     */
+    public boolean remove(final String name)
+    {
+        final int hash;
+        hash = hash(validateName(name));
+
+        writeLock.lock();
+        try
+        {
+            final int slot;
+            slot = slotOf(name, hash);
+
+            if (slot == EMPTY)
+            {
+                return false;
+            }
+            release(table[slot]);
+            return true;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every dead creature, freeing their ids and names for reuse.
+     *
+     * @return the number of creatures removed
+     */
+    public int reapDead()
+    {
+        writeLock.lock();
+        try
+        {
+            int reaped;
+            reaped = 0;
+
+            for (int id = 0; id < idsUsed; id++)
+            {
+                if (creatures[id] != null && !creatures[id].isAlive())
+                {
+                    release(id);
+                    reaped++;
+                }
+            }
+            return reaped;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of registered creatures.
+     *
+     * @return the number of creatures
+     */
+    public int size()
+    {
+        readLock.lock();
+        try
+        {
+            return size;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Counts the living creatures.
+     *
+     * @return the number of living creatures
+     */
+    public int countAlive()
+    {
+        return healthIndex.countAlive();
+    }
+
+    /**
+     * Counts the living creatures of one kind.
+     *
+     * @param kind the kind, must not be null
+     * @return the number of living creatures of that kind
+     * @throws IllegalArgumentException if the kind is null
+     */
+    public int countAlive(final CreatureKind kind)
+    {
+        if (kind == null)
+        {
+            throw new IllegalArgumentException("Kind cannot be null");
+        }
+        return healthIndex.countAlive(kind);
+    }
+
+    /**
+     * Adds every living creature to a collection, in id order.
+     *
+     * @param found the collection to add the creatures to, must not be null
+     * @return the number of creatures added
+     */
+    public int collectAlive(final Collection<? super Creature> found)
+    {
+        final int before;
+
+        readLock.lock();
+        try
+        {
+            before = found.size();
+
+            healthIndex.forEachAlive(idsUsed, id ->
+            {
+                final Creature creature;
+                creature = creatures[id];
+
+                if (creature != null && creature.isAlive())
+                {
+                    found.add(creature);
+                }
+            });
+            return found.size() - before;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Adds every living creature whose health is below a threshold to a collection, in id order.
+     *
+     * @param health the threshold
+     * @param found  the collection to add the creatures to, must not be null
+     * @return the number of creatures added
+     */
+    public int collectBelowHealth(final int health,
+                                  final Collection<? super Creature> found)
+    {
+        final int before;
+
+        readLock.lock();
+        try
+        {
+            before = found.size();
+
+            healthIndex.forEachBelow(health, idsUsed, id ->
+            {
+                final Creature creature;
+                creature = creatures[id];
+
+                if (creature != null && creature.isAlive() && creature.getHealth() < health)
+                {
+                    found.add(creature);
+                }
+            });
+            return found.size() - before;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Counts the creatures of a kind born within a range of dates.
+     *
+     * @param kind     the kind, must not be null
+     * @param earliest the earliest date of birth, inclusive, must not be null
+     * @param latest   the latest date of birth, inclusive, must not be null
+     * @return the number of creatures, zero if the earliest date is after the latest
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public int countBornBetween(final CreatureKind kind,
+                                final Date earliest,
+                                final Date latest)
+    {
+        validateDateRange(kind, earliest, latest);
+
+        readLock.lock();
+        try
+        {
+            return birthDateIndex.countBetween(kind, earliest.toPackedInt(), latest.toPackedInt());
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Adds every creature of a kind born within a range of dates to a collection, oldest first.
+     *
+     * @param kind     the kind, must not be null
+     * @param earliest the earliest date of birth, inclusive, must not be null
+     * @param latest   the latest date of birth, inclusive, must not be null
+     * @param found    the collection to add the creatures to, must not be null
+     * @return the number of creatures added
+     * @throws IllegalArgumentException if the kind or either date is null
+     */
+    public int collectBornBetween(final CreatureKind kind,
+                                  final Date earliest,
+                                  final Date latest,
+                                  final Collection<? super Creature> found)
+    {
+        final int before;
+
+        validateDateRange(kind, earliest, latest);
+
+        readLock.lock();
+        try
+        {
+            before = found.size();
+
+            birthDateIndex.forEachBetween(kind,
+                                          earliest.toPackedInt(),
+                                          latest.toPackedInt(),
+                                          id -> found.add(creatures[id]));
+            return found.size() - before;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the oldest creatures of a kind to a collection, oldest first.
+     *
+     * @param kind  the kind, must not be null
+     * @param count the most creatures to add, must not be negative
+     * @param found the collection to add the creatures to, must not be null
+     * @return the number of creatures added
+     * @throws IllegalArgumentException if the kind is null or the count is negative
+     */
+    public int collectOldest(final CreatureKind kind,
+                             final int count,
+                             final Collection<? super Creature> found)
+    {
+        final int before;
+
+        validateTopCount(kind, count);
+
+        readLock.lock();
+        try
+        {
+            before = found.size();
+
+            birthDateIndex.forEachOldest(kind, count, id -> found.add(creatures[id]));
+            return found.size() - before;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the youngest creatures of a kind to a collection, youngest first.
+     *
+     * @param kind  the kind, must not be null
+     * @param count the most creatures to add, must not be negative
+     * @param found the collection to add the creatures to, must not be null
+     * @return the number of creatures added
+     * @throws IllegalArgumentException if the kind is null or the count is negative
+     */
+    public int collectYoungest(final CreatureKind kind,
+                               final int count,
+                               final Collection<? super Creature> found)
+    {
+        final int before;
+
+        validateTopCount(kind, count);
+
+        readLock.lock();
+        try
+        {
+            before = found.size();
+
+            birthDateIndex.forEachYoungest(kind, count, id -> found.add(creatures[id]));
+            return found.size() - before;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the table slot holding the id of the creature with a name. Must be called with a
+     * lock held.
+     *
+     * @param name the name to find
+     * @param hash the hash of the name
+     * @return the slot, or {@link #EMPTY} if no creature has the name
+     */
+    private int slotOf(final String name,
+                       final int hash)
+    {
+        final int mask;
+        int       slot;
+
+        mask = table.length - 1;
+        slot = hash & mask;
+
+        while (table[slot] != EMPTY)
+        {
+            final int id;
+            id = table[slot];
+
+            if (hashes[id] == hash && creatures[id].getName().equals(name))
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Adds an id to the name table, which must have room for it.
+     *
+     * @param id the id to add, whose creature and hash are already set
+     */
+    private void insert(final int id)
+    {
+        final int mask;
+        int       slot;
+
+        mask = table.length - 1;
+        slot = hashes[id] & mask;
+
+        while (table[slot] != EMPTY)
+        {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id;
+    }
+
+    /**
+     * Removes a registered creature and frees its id.
+     *
+     * @param id the creature's id
+     */
+    private void release(final int id)
+    {
+        final int mask;
+        int       slot;
+        int       hole;
+
+        mask = table.length - 1;
+        slot = hashes[id] & mask;
+
+        while (table[slot] != id)
+        {
+            slot = (slot + 1) & mask;
+        }
+
+        // Shift later entries of the probe run back into the hole, unless that would move an
+        // entry before its home slot
+        hole = slot;
+        slot = (slot + 1) & mask;
+
+        while (table[slot] != EMPTY)
+        {
+            final int home;
+            home = hashes[table[slot]] & mask;
+
+            if (((slot - home) & mask) >= ((slot - hole) & mask))
+            {
+                table[hole] = table[slot];
+                hole        = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[hole] = EMPTY;
+
+        healthIndex.remove(creatures[id], id);
+        birthDateIndex.remove(creatures[id], id);
+        creatures[id]      = null;
+        freeIds[freeCount] = id;
+        freeCount++;
+        size--;
+    }
+
+    /**
+     * Rebuilds the name table at a new length.
+     *
+     * @param length the new length, a power of two
+     */
+    private void rehash(final int length)
+    {
+        table = emptyTable(length);
+
+        for (int id = 0; id < idsUsed; id++)
+        {
+            if (creatures[id] != null)
+            {
+                final int mask;
+                int       slot;
+
+                mask = length - 1;
+                slot = hashes[id] & mask;
+
+                while (table[slot] != EMPTY)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = id;
+            }
+        }
+    }
+
+    /**
+     * Grows the per-id arrays by {@link #GROWTH_FACTOR}.
+     */
+    private void grow()
+    {
+        final int newCapacity;
+        newCapacity = creatures.length * GROWTH_FACTOR;
+
+        creatures = Arrays.copyOf(creatures, newCapacity);
+        hashes    = Arrays.copyOf(hashes, newCapacity);
+        freeIds   = Arrays.copyOf(freeIds, newCapacity);
+    }
+
+    /**
+     * Creates a name table with every slot empty.
+     *
+     * @param length the table length, a power of two
+     * @return the table
+     */
+    private static int[] emptyTable(final int length)
+    {
+        final int[] empty;
+        empty = new int[length];
+
+        Arrays.fill(empty, EMPTY);
+        return empty;
+    }
+
+    /**
+     * Hashes a name, mixing the high bits into the low bits used to pick a slot.
+     *
+     * @param name the name
+     * @return the hash
+     */
+    private static int hash(final String name)
+    {
+        final int hash;
+        hash = name.hashCode();
+
+        return hash ^ (hash >>> HASH_SHIFT);
+    }
+
+    /**
+     * Validates the arguments of a date of birth range query.
+     *
+     * @param kind     the kind
+     * @param earliest the earliest date of birth
+     * @param latest   the latest date of birth
+     * @throws IllegalArgumentException if any argument is null
+     */
+    private static void validateDateRange(final CreatureKind kind,
+                                          final Date earliest,
+                                          final Date latest)
+    {
+        if (kind == null || earliest == null || latest == null)
+        {
+            throw new IllegalArgumentException("Kind and dates cannot be null");
+        }
+    }
+
+    /**
+     * Validates the arguments of an oldest or youngest query.
+     *
+     * @param kind  the kind
+     * @param count the most creatures to find
+     * @throws IllegalArgumentException if the kind is null or the count is negative
+     */
+    private static void validateTopCount(final CreatureKind kind,
+                                         final int count)
+    {
+        if (kind == null)
+        {
+            throw new IllegalArgumentException("Kind cannot be null");
+        }
+        if (count < 0)
+        {
+            throw new IllegalArgumentException("Count must not be negative");
+        }
+    }
+
+    /**
+     * Validates a name used for lookup.
+     *
+     * @param name the name
+     * @return the name
+     * @throws IllegalArgumentException if the name is null
+     */
+    private static String validateName(final String name)
+    {
+        if (name == null)
+        {
+            throw new IllegalArgumentException("Name cannot be null");
+        }
+        return name;
+    }
+}
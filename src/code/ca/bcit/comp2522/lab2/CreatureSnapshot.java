@@ -0,0 +1,418 @@
+package ca.bcit.comp2522.lab2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary snapshot of a {@link CreatureStore}, for checkpointing a population to disk
+ * and restoring it.
+ * <p>
+ * A snapshot file is laid out in three parts, all little-endian:
+ * </p>
+ * <ol>
+ *     <li>A fixed-size header holding a magic number, the format version, the record size, the
+ *         number of records, and the position and length of the name table.</li>
+ *     <li>One fixed-width record per creature holding its kind, packed date of birth, health,
+ *         fire power, mana, or rage, and the offset of its name in the name table.</li>
+ *     <li>A name table holding each distinct name once as a length followed by UTF-8 bytes.</li>
+ * </ol>
+ * <p>
+ * {@link #write(CreatureStore, Path)} produces the file in a single sequential pass.
+ * {@link #open(Path)} maps the file into memory, checks the header, and reads records in place,
+ * so nothing is parsed until a field is asked for. {@link #loadInto(CreatureStore)} restores
+ * the whole population into a store.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public final class CreatureSnapshot
+{
+    private static final int   MAGIC   = 0x4E535243; // "CRSN" in little-endian byte order
+    private static final short VERSION = 1;
+
+    // --- Header layout, in bytes ---
+    private static final int MAGIC_OFFSET        = 0;
+    private static final int VERSION_OFFSET      = 4;
+    private static final int RECORD_SIZE_OFFSET  = 6;
+    private static final int COUNT_OFFSET        = 8;
+    private static final int NAMES_OFFSET_OFFSET = 12;
+    private static final int NAMES_LENGTH_OFFSET = 20;
+    private static final int HEADER_SIZE         = 28;
+
+    // --- Record layout, in bytes ---
+    private static final int KIND_OFFSET       = 0;
+    private static final int BIRTH_DATE_OFFSET = 4;
+    private static final int HEALTH_OFFSET     = 8;
+    private static final int RESOURCE_OFFSET   = 12;
+    private static final int NAME_OFFSET       = 16;
+    private static final int RECORD_SIZE       = 20;
+
+    private static final int NAME_LENGTH_SIZE  = Integer.BYTES;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private final MappedByteBuffer mapped;
+    private final int              count;
+    private final int              namesOffset;
+
+    /**
+     * Constructs a new {@code CreatureSnapshot} over a mapped file whose header has been checked.
+     *
+     * @param mapped      the mapped file
+     * @param count       the number of records
+     * @param namesOffset the position of the name table in the file
+     */
+    private CreatureSnapshot(final MappedByteBuffer mapped,
+                             final int count,
+                             final int namesOffset)
+    {
+        this.mapped      = mapped;
+        this.count       = count;
+        this.namesOffset = namesOffset;
+    }
+
+    /**
+     * Writes every creature in a store to a snapshot file, replacing the file if it exists.
+     *
+     * @param store the store to write, must not be null
+     * @param path  the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(final CreatureStore store,
+                             final Path path) throws IOException
+    {
+        final int                  count;
+        final int[]                nameOffsets;
+        final List<byte[]>         encodedNames;
+        final Map<String, Integer> offsetsByName;
+        final long                 namesOffset;
+        long                       namesLength;
+
+        count         = store.size;
+        nameOffsets   = new int[count];
+        encodedNames  = new ArrayList<>();
+        offsetsByName = new HashMap<>();
+        namesOffset   = HEADER_SIZE + (long) count * RECORD_SIZE;
+        namesLength   = 0L;
+
+        for (int i = 0; i < count; i++)
+        {
+            final Integer existing;
+            existing = offsetsByName.get(store.names[i]);
+
+            if (existing != null)
+            {
+                nameOffsets[i] = existing;
+            }
+            else
+            {
+                final byte[] encoded;
+                encoded = store.names[i].getBytes(StandardCharsets.UTF_8);
+
+                nameOffsets[i] = (int) namesLength;
+                offsetsByName.put(store.names[i], nameOffsets[i]);
+                encodedNames.add(encoded);
+                namesLength += NAME_LENGTH_SIZE + encoded.length;
+            }
+        }
+
+        if (namesOffset + namesLength > Integer.MAX_VALUE)
+        {
+            throw new IOException("Population of " + count + " creatures is too large for one snapshot");
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            final ByteBuffer buffer;
+            buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) RECORD_SIZE);
+            buffer.putInt(count);
+            buffer.putLong(namesOffset);
+            buffer.putLong(namesLength);
+
+            for (int i = 0; i < count; i++)
+            {
+                if (buffer.remaining() < RECORD_SIZE)
+                {
+                    drain(channel, buffer);
+                }
+
+                buffer.put(store.kinds[i]);
+                buffer.put((byte) 0).put((byte) 0).put((byte) 0);
+                buffer.putInt(store.birthDates[i]);
+                buffer.putInt(store.health[i]);
+                buffer.putInt(store.resources[i]);
+                buffer.putInt(nameOffsets[i]);
+            }
+
+            for (final byte[] encoded : encodedNames)
+            {
+                int written;
+
+                if (buffer.remaining() < NAME_LENGTH_SIZE)
+                {
+                    drain(channel, buffer);
+                }
+                buffer.putInt(encoded.length);
+
+                written = 0;
+                while (written < encoded.length)
+                {
+                    final int chunk;
+
+                    if (!buffer.hasRemaining())
+                    {
+                        drain(channel, buffer);
+                    }
+
+                    chunk = Math.min(buffer.remaining(), encoded.length - written);
+                    buffer.put(encoded, written, chunk);
+                    written += chunk;
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes the contents of a buffer to a channel and clears it for reuse.
+     *
+     * @param channel the channel to write to
+     * @param buffer  the buffer to empty
+     * @throws IOException if the write fails
+     */
+    private static void drain(final FileChannel channel,
+                              final ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Maps a snapshot file into memory for reading.
+     *
+     * @param path the snapshot file to open
+     * @return the snapshot
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static CreatureSnapshot open(final Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            final long             fileSize;
+            final MappedByteBuffer mapped;
+            final int              count;
+            final long             namesOffset;
+            final long             namesLength;
+
+            fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE)
+            {
+                throw new IOException("Not a creature snapshot: " + path);
+            }
+
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L, fileSize);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (mapped.getInt(MAGIC_OFFSET) != MAGIC)
+            {
+                throw new IOException("Not a creature snapshot: " + path);
+            }
+
+            if (mapped.getShort(VERSION_OFFSET) != VERSION ||
+                mapped.getShort(RECORD_SIZE_OFFSET) != RECORD_SIZE)
+            {
+                throw new IOException("Unsupported creature snapshot version " + mapped.getShort(VERSION_OFFSET));
+            }
+
+            count       = mapped.getInt(COUNT_OFFSET);
+            namesOffset = mapped.getLong(NAMES_OFFSET_OFFSET);
+            namesLength = mapped.getLong(NAMES_LENGTH_OFFSET);
+
+            if (count < 0 ||
+                namesOffset != HEADER_SIZE + (long) count * RECORD_SIZE ||
+                namesLength < 0 ||
+                namesOffset + namesLength != fileSize)
+            {
+                throw new IOException("Creature snapshot is truncated or corrupt: " + path);
+            }
+
+            return new CreatureSnapshot(mapped, count, (int) namesOffset);
+        }
+    }
+
+    /**
+     * Gets the number of creatures in the snapshot.
+     *
+     * @return the number of records
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Gets the kind of the creature at a position in the snapshot.
+     *
+     * @param index the creature's position
+     * @return a {@link CreatureKind} code
+     */
+    public byte getKind(final int index)
+    {
+        return mapped.get(recordOffset(index) + KIND_OFFSET);
+    }
+
+    /**
+     * Gets the packed date of birth of the creature at a position in the snapshot.
+     *
+     * @param index the creature's position
+     * @return the packed date of birth
+     */
+    public int getPackedBirthDate(final int index)
+    {
+        return mapped.getInt(recordOffset(index) + BIRTH_DATE_OFFSET);
+    }
+
+    /**
+     * Gets the health of the creature at a position in the snapshot.
+     *
+     * @param index the creature's position
+     * @return the creature's health
+     */
+    public int getHealth(final int index)
+    {
+        return mapped.getInt(recordOffset(index) + HEALTH_OFFSET);
+    }
+
+    /**
+     * Gets the fire power, mana, or rage of the creature at a position in the snapshot.
+     *
+     * @param index the creature's position
+     * @return the creature's resource value
+     */
+    public int getResource(final int index)
+    {
+        return mapped.getInt(recordOffset(index) + RESOURCE_OFFSET);
+    }
+
+    /**
+     * Gets the name of the creature at a position in the snapshot, decoding it from the name table.
+     *
+     * @param index the creature's position
+     * @return the creature's name
+     * @throws IllegalStateException if the name table entry is corrupt
+     */
+    public String getName(final int index)
+    {
+        return decodeName(mapped.getInt(recordOffset(index) + NAME_OFFSET));
+    }
+
+    /**
+     * Appends every creature in the snapshot to a store, validating each one with the same rules
+     * as {@link CreatureStore#add(byte, String, Date, int, int)}. Names shared by several records
+     * are decoded once.
+     *
+     * @param store the store to restore into, must not be null
+     * @return the index in the store of the first restored creature
+     * @throws IllegalArgumentException if any record holds an invalid creature
+     * @throws IllegalStateException    if the name table is corrupt
+     */
+    public int loadInto(final CreatureStore store)
+    {
+        final Map<Integer, String> namesByOffset;
+        final int                  first;
+
+        namesByOffset = new HashMap<>();
+        first         = store.size;
+
+        for (int i = 0; i < count; i++)
+        {
+            final int base;
+            final int nameOffset;
+            String    name;
+
+            base       = recordOffset(i);
+            nameOffset = mapped.getInt(base + NAME_OFFSET);
+            name       = namesByOffset.get(nameOffset);
+
+            if (name == null)
+            {
+                name = decodeName(nameOffset);
+                namesByOffset.put(nameOffset, name);
+            }
+
+            store.add(mapped.get(base + KIND_OFFSET),
+                      name,
+                      Date.fromPackedInt(mapped.getInt(base + BIRTH_DATE_OFFSET)),
+                      mapped.getInt(base + HEALTH_OFFSET),
+                      mapped.getInt(base + RESOURCE_OFFSET));
+        }
+        return first;
+    }
+
+    /**
+     * Decodes the name stored at an offset in the name table.
+     *
+     * @param nameOffset the offset of the entry from the start of the name table
+     * @return the decoded name
+     * @throws IllegalStateException if the entry lies outside the name table
+     */
+    private String decodeName(final int nameOffset)
+    {
+        final int    position;
+        final int    length;
+        final byte[] encoded;
+
+        position = namesOffset + nameOffset;
+        if (nameOffset < 0 || position > mapped.limit() - NAME_LENGTH_SIZE)
+        {
+            throw new IllegalStateException("Name offset " + nameOffset + " is outside the name table");
+        }
+
+        length = mapped.getInt(position);
+        if (length < 0 || length > mapped.limit() - position - NAME_LENGTH_SIZE)
+        {
+            throw new IllegalStateException("Name at offset " + nameOffset + " runs past the name table");
+        }
+
+        encoded = new byte[length];
+        mapped.get(position + NAME_LENGTH_SIZE, encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Validates a position and returns the byte offset of its record.
+     *
+     * @param index the creature's position
+     * @return the byte offset of the record
+     * @throws IndexOutOfBoundsException if the position is not in the snapshot
+     */
+    private int recordOffset(final int index)
+    {
+        if (index < 0 || index >= count)
+        {
+            throw new IndexOutOfBoundsException("Index " + index + " is not between 0 and " + (count - 1));
+        }
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,608 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.Arrays;
+
+/**
+ * Holds a population of creatures as parallel primitive arrays instead of one object per creature.
+ * <p>
+ * Each creature occupies one index across the arrays: its kind, name, packed date of birth,
+ * health, and the resource of its kind (fire power for dragons, mana for elves, rage for orcs).
+ * The index doubles as the creature's id. Keeping the state in contiguous arrays lets bulk
+ * operations such as {@link #countAlive()} and {@link #takeDamageAll(int)} stream through memory
+ * instead of chasing one reference per creature.
+ * </p>
+ * <p>
+ * Individual creatures can be inspected through a reusable {@link View}, which reads and writes
+ * the arrays directly and never allocates per creature.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class CreatureStore
+{
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MIN_CAPACITY     = 1;
+    private static final int GROWTH_FACTOR    = 2;
+    private static final int WORD_SHIFT       = 6;
+
+    // Package-private so that bulk systems such as CombatEngine can loop over the arrays directly
+    byte[]   kinds;
+    String[] names;
+    int[]    birthDates;
+    int[]    health;
+    int[]    resources;
+    int      size;
+
+    // Package-private so that bulk systems journal the changes they make to the arrays
+    CombatJournal journal;
+
+    // One bit per creature that may need regenerating. Every change that can move a creature
+    // away from its resting resource, or bring it back to life, sets the creature's bit, and
+    // RegenerationSystem clears it once the creature is at rest or dead
+    long[] regenerating;
+
+    /**
+     * Constructs an empty {@code CreatureStore} with a default initial capacity.
+     */
+    public CreatureStore()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty {@code CreatureStore} able to hold the given number of creatures
+     * before its arrays need to grow.
+     *
+     * @param initialCapacity the initial number of creature slots, must be at least one
+     * @throws IllegalArgumentException if the capacity is less than one
+     */
+    public CreatureStore(final int initialCapacity)
+    {
+        if (initialCapacity < MIN_CAPACITY)
+        {
+            throw new IllegalArgumentException("Capacity must be at least " + MIN_CAPACITY);
+        }
+
+        kinds        = new byte[initialCapacity];
+        names        = new String[initialCapacity];
+        birthDates   = new int[initialCapacity];
+        health       = new int[initialCapacity];
+        resources    = new int[initialCapacity];
+        regenerating = new long[wordsFor(initialCapacity)];
+        size         = 0;
+    }
+
+    /**
+     * Adds a creature to the store, validating its attributes with the same rules as the
+     * {@link Dragon}, {@link Elf}, and {@link Orc} constructors.
+     *
+     * @param kind        the kind of creature, a {@link CreatureKind} code
+     * @param name        the name of the creature, must not be null or blank
+     * @param dateOfBirth the date of birth of the creature, must not be null or in the future
+     * @param health      the initial health of the creature
+     * @param resource    the initial fire power, mana, or rage, depending on the kind
+     * @return the index assigned to the new creature
+     * @throws IllegalArgumentException if the kind is unknown or any attribute is invalid
+     */
+    public int add(final byte kind,
+                   final String name,
+                   final Date dateOfBirth,
+                   final int health,
+                   final int resource)
+    {
+        Creature.validateName(name);
+        Creature.validateDate(dateOfBirth);
+        Creature.validateHealth(health);
+        validateResource(kind, resource);
+
+        return append(kind, name, dateOfBirth.toPackedInt(), health, resource);
+    }
+
+    /**
+     * Copies the state of an existing creature into the store.
+     *
+     * @param creature the creature to copy, must not be null
+     * @return the index assigned to the copied creature
+     * @throws IllegalArgumentException if the creature is null
+     */
+    public int add(final Creature creature)
+    {
+        if (creature == null)
+        {
+            throw new IllegalArgumentException("Creature must not be null");
+        }
+
+        return append(creature.getKind().getCode(),
+                      creature.getName(),
+                      creature.getDateOfBirth().toPackedInt(),
+                      creature.getHealth(),
+                      creature.getResource());
+    }
+
+    /**
+     * Validates a resource value against the limits of the given creature kind.
+     *
+     * @param kind     the kind of creature
+     * @param resource the resource value to validate
+     * @throws IllegalArgumentException if the kind is unknown or the resource is out of range
+     */
+    static void validateResource(final byte kind,
+                                 final int resource)
+    {
+        switch (kind)
+        {
+            case CreatureKind.DRAGON_CODE:
+                Dragon.validateFirePower(resource);
+                break;
+            case CreatureKind.ELF_CODE:
+                Elf.validateMana(resource);
+                break;
+            case CreatureKind.ORC_CODE:
+                Orc.validateRage(resource);
+                break;
+            default:
+                CombatMetrics.recordValidationFailure();
+                throw new IllegalArgumentException("Unknown creature kind: " + kind);
+        }
+    }
+
+    /**
+     * Appends already validated state to the end of the arrays, growing them if needed.
+     * <p>
+     * Package-private so that bulk loaders which validate rows elsewhere can append them directly.
+     * </p>
+     *
+     * @param kind            the kind of creature
+     * @param name            the name of the creature
+     * @param packedBirthDate the packed date of birth
+     * @param health          the initial health
+     * @param resource        the initial resource value
+     * @return the index assigned to the creature
+     */
+    int append(final byte kind,
+               final String name,
+               final int packedBirthDate,
+               final int health,
+               final int resource)
+    {
+        final int index;
+
+        if (size == kinds.length)
+        {
+            grow();
+        }
+
+        index = size;
+
+        kinds[index]       = kind;
+        names[index]       = name;
+        birthDates[index]  = packedBirthDate;
+        this.health[index] = health;
+        resources[index]   = resource;
+        markRegenerating(index);
+
+        size++;
+        return index;
+    }
+
+    /**
+     * Grows every array by {@link #GROWTH_FACTOR}.
+     */
+    private void grow()
+    {
+        final int newCapacity;
+        newCapacity = kinds.length * GROWTH_FACTOR;
+
+        kinds        = Arrays.copyOf(kinds, newCapacity);
+        names        = Arrays.copyOf(names, newCapacity);
+        birthDates   = Arrays.copyOf(birthDates, newCapacity);
+        health       = Arrays.copyOf(health, newCapacity);
+        resources    = Arrays.copyOf(resources, newCapacity);
+        regenerating = Arrays.copyOf(regenerating, wordsFor(newCapacity));
+    }
+
+    /**
+     * Marks a creature as possibly needing regeneration.
+     *
+     * @param index the creature's index
+     */
+    void markRegenerating(final int index)
+    {
+        regenerating[index >>> WORD_SHIFT] |= 1L << index;
+    }
+
+    /**
+     * Counts the words needed for one bit per creature.
+     *
+     * @param capacity the number of creatures
+     * @return the number of words
+     */
+    private static int wordsFor(final int capacity)
+    {
+        return (capacity + Long.SIZE - 1) >>> WORD_SHIFT;
+    }
+
+    /**
+     * Validates that an index refers to a creature in the store.
+     *
+     * @param index the index to check
+     * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+     */
+    private void checkIndex(final int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + index + " is not between 0 and " + (size - 1));
+        }
+    }
+
+    /**
+     * Attaches a journal that records every later change to health or resources, or detaches
+     * the current one.
+     * <p>
+     * Creatures added after the journal is attached are not recorded; take a
+     * {@link CreatureSnapshot} when attaching it so that {@link CombatJournal#replay} has the
+     * starting state.
+     * </p>
+     *
+     * @param journal the journal to record changes to, or null to stop recording
+     */
+    public void setJournal(final CombatJournal journal)
+    {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the number of creatures in the store.
+     *
+     * @return the number of creatures
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Gets the kind of the creature at the given index.
+     *
+     * @param index the creature's index
+     * @return a {@link CreatureKind} code
+     */
+    public byte getKind(final int index)
+    {
+        checkIndex(index);
+        return kinds[index];
+    }
+
+    /**
+     * Gets the name of the creature at the given index.
+     *
+     * @param index the creature's index
+     * @return the creature's name
+     */
+    public String getName(final int index)
+    {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * Gets the date of birth of the creature at the given index in its packed form.
+     *
+     * @param index the creature's index
+     * @return the packed date of birth, as returned by {@link Date#toPackedInt()}
+     */
+    public int getPackedBirthDate(final int index)
+    {
+        checkIndex(index);
+        return birthDates[index];
+    }
+
+    /**
+     * Gets the date of birth of the creature at the given index.
+     * <p>
+     * The date is the shared instance from {@link Date#fromPackedInt(int)}, the same one
+     * {@link Date#of(int, int, int)} returns for that day, so no object is created per call.
+     * </p>
+     *
+     * @param index the creature's index
+     * @return the shared {@link Date} holding the creature's date of birth
+     */
+    public Date getDateOfBirth(final int index)
+    {
+        return Date.fromPackedInt(getPackedBirthDate(index));
+    }
+
+    /**
+     * Gets the current health of the creature at the given index.
+     *
+     * @param index the creature's index
+     * @return the creature's health
+     */
+    public int getHealth(final int index)
+    {
+        checkIndex(index);
+        return health[index];
+    }
+
+    /**
+     * Gets the fire power, mana, or rage of the creature at the given index.
+     *
+     * @param index the creature's index
+     * @return the creature's resource value
+     */
+    public int getResource(final int index)
+    {
+        checkIndex(index);
+        return resources[index];
+    }
+
+    /**
+     * Checks if the creature at the given index is alive.
+     *
+     * @param index the creature's index
+     * @return {@code true} if the creature's health is greater than {@link Creature#MIN_HEALTH}
+     */
+    public boolean isAlive(final int index)
+    {
+        checkIndex(index);
+        return health[index] > Creature.MIN_HEALTH;
+    }
+
+    /**
+     * Applies damage to the creature at the given index, with the same rules as
+     * {@link Creature#takeDamage(int)}.
+     *
+     * @param index  the creature's index
+     * @param damage the amount of damage to apply, must be non-negative
+     * @throws DamageException if the damage amount is negative
+     */
+    public void takeDamage(final int index,
+                           final int damage)
+    {
+        checkIndex(index);
+        health[index] = Creature.damagedHealth(health[index], damage);
+
+        if (journal != null)
+        {
+            journal.record(CombatJournal.OP_DAMAGE, index, damage, health[index]);
+        }
+    }
+
+    /**
+     * Heals the creature at the given index, with the same rules as {@link Creature#heal(int)}.
+     *
+     * @param index      the creature's index
+     * @param healAmount the amount to heal
+     * @throws HealingException if the healing amount is invalid
+     */
+    public void heal(final int index,
+                     final int healAmount)
+    {
+        checkIndex(index);
+        health[index] = Creature.healedHealth(health[index], healAmount);
+        markRegenerating(index);
+
+        if (journal != null)
+        {
+            journal.record(CombatJournal.OP_HEAL, index, healAmount, health[index]);
+        }
+    }
+
+    /**
+     * Applies the same damage to a group of creatures in one pass over their health, as an area
+     * attack would, with the same rules as {@link Creature#takeDamage(int)}.
+     * <p>
+     * Every index is checked before any health changes, so an invalid index leaves the store
+     * untouched.
+     * </p>
+     *
+     * @param indices the positions of the creatures to damage
+     * @param count   the number of leading entries of {@code indices} to use
+     * @param damage  the amount of damage to apply to each creature, must be non-negative
+     * @throws DamageException           if the damage amount is negative
+     * @throws IndexOutOfBoundsException if {@code count} exceeds {@code indices} or any index is invalid
+     */
+    public void takeDamage(final int[] indices,
+                           final int count,
+                           final int damage)
+    {
+        if (damage < Creature.MIN_DAMAGE)
+        {
+            throw new DamageException("Damage must not be less than " + Creature.MIN_DAMAGE);
+        }
+
+        if (count < 0 || count > indices.length)
+        {
+            throw new IndexOutOfBoundsException("Count " + count + " is not between 0 and " + indices.length);
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            checkIndex(indices[i]);
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            final int index;
+            index = indices[i];
+
+            health[index] = Math.max(health[index] - damage, Creature.MIN_HEALTH);
+        }
+
+        if (journal != null)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                journal.record(CombatJournal.OP_DAMAGE, indices[i], damage, health[indices[i]]);
+            }
+        }
+    }
+
+    /**
+     * Applies the same damage to every creature in the store in a single pass.
+     *
+     * @param damage the amount of damage to apply, must be non-negative
+     * @throws DamageException if the damage amount is negative
+     */
+    public void takeDamageAll(final int damage)
+    {
+        HealthVectors.applyDamage(health, size, damage);
+
+        if (journal != null)
+        {
+            journal.record(CombatJournal.OP_DAMAGE_ALL, size, damage, size);
+        }
+    }
+
+    /**
+     * Counts the creatures in the store that are alive.
+     *
+     * @return the number of creatures with health greater than {@link Creature#MIN_HEALTH}
+     */
+    public int countAlive()
+    {
+        int alive;
+        alive = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (health[i] > Creature.MIN_HEALTH)
+            {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * Creates a view positioned on the creature at the given index.
+     *
+     * @param index the creature's index
+     * @return a new view that can be moved to other creatures with {@link View#moveTo(int)}
+     */
+    public View view(final int index)
+    {
+        final View view;
+
+        view = new View();
+        view.moveTo(index);
+        return view;
+    }
+
+    /**
+     * A reusable, movable window onto one creature in the enclosing {@link CreatureStore}.
+     * <p>
+     * A single {@code View} can be moved across the whole store to read or update each creature
+     * in turn, so iterating millions of creatures allocates nothing.
+     * </p>
+     *
+     * @author Ryan Fiset, Larry Lin
+     * @version 1.0
+     */
+    public final class View
+    {
+        private int index;
+
+        private View()
+        {
+        }
+
+        /**
+         * Moves this view to the creature at the given index.
+         *
+         * @param index the creature's index
+         * @return this view
+         * @throws IndexOutOfBoundsException if the index is not in the store
+         */
+        public View moveTo(final int index)
+        {
+            checkIndex(index);
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Gets the index of the creature this view is positioned on.
+         *
+         * @return the creature's index
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        /**
+         * Gets the kind of the creature.
+         *
+         * @return the creature's kind
+         */
+        public byte getKind()
+        {
+            return kinds[index];
+        }
+
+        /**
+         * Gets the name of the creature.
+         *
+         * @return the creature's name
+         */
+        public String getName()
+        {
+            return names[index];
+        }
+
+        /**
+         * Gets the current health of the creature.
+         *
+         * @return the creature's health
+         */
+        public int getHealth()
+        {
+            return health[index];
+        }
+
+        /**
+         * Gets the fire power, mana, or rage of the creature.
+         *
+         * @return the creature's resource value
+         */
+        public int getResource()
+        {
+            return resources[index];
+        }
+
+        /**
+         * Checks if the creature is alive.
+         *
+         * @return {@code true} if the creature's health is greater than {@link Creature#MIN_HEALTH}
+         */
+        public boolean isAlive()
+        {
+            return health[index] > Creature.MIN_HEALTH;
+        }
+
+        /**
+         * Applies damage to the creature.
+         *
+         * @param damage the amount of damage to apply, must be non-negative
+         * @throws DamageException if the damage amount is negative
+         */
+        public void takeDamage(final int damage)
+        {
+            CreatureStore.this.takeDamage(index, damage);
+        }
+
+        /**
+         * Heals the creature.
+         *
+         * @param healAmount the amount to heal
+         * @throws HealingException if the healing amount is invalid
+         */
+        public void heal(final int healAmount)
+        {
+            CreatureStore.this.heal(index, healAmount);
+        }
+    }
+}
@@ -52,6 +52,11 @@ public class CreatureTest
      */
     public static void main(final String[] args)
     {
+        final AsyncConsoleCombatLogger combatLog;
+
+        combatLog = new AsyncConsoleCombatLogger();
+        Creature.setCombatEventListener(combatLog);
+
         try
         {
             // Dragon born 50 years ago
@@ -103,6 +108,7 @@ public class CreatureTest
             {
                 System.out.println("\n--- Dragon's Turn ---");
                 dragon.breatheFire(elf);
+                combatLog.flush();
                 System.out.println("Elf's health after fire attack: " + elf.getHealth());
             }
             catch (final LowFirePowerException e)
@@ -115,6 +121,7 @@ public class CreatureTest
             {
                 System.out.println("\n--- Elf's Turn ---");
                 elf.castSpell(orc);
+                combatLog.flush();
                 System.out.println("Orc's health after spell: " + orc.getHealth());
             }
             catch (final LowManaException e)
@@ -127,6 +134,7 @@ public class CreatureTest
             {
                 System.out.println("\n--- Orc's Turn ---");
                 orc.berserk(dragon);
+                combatLog.flush();
                 System.out.println("Dragon's health after berserk: " + dragon.getHealth());
             }
             catch (final LowRageException e)
@@ -174,6 +182,8 @@ public class CreatureTest
                 }
             }
 
+            combatLog.flush();
+
             // Try to breathe fire with insufficient power
             try
             {
@@ -200,6 +210,8 @@ public class CreatureTest
                 }
             }
 
+            combatLog.flush();
+
             // Create an orc with low rage and try berserk
             try
             {
@@ -229,5 +241,10 @@ public class CreatureTest
             System.out.println("Unexpected error: " + e.getMessage());
             e.printStackTrace();
         }
+        finally
+        {
+            combatLog.close();
+            Creature.setCombatEventListener(null);
+        }
     }
 }
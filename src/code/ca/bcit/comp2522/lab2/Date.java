@@ -1,57 +1,46 @@
 package ca.bcit.comp2522.lab2;
 
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Represents a calendar date with day, month, and year values.
  *
  * <p>The {@code Date} class provides:</p>
  * <ul>
- *     <li>Validation to ensure all dates fall between the year 1800 and the current year (2025).</li>
+ *     <li>Validation to ensure all dates fall between the year 1800 and the year 2099.</li>
  *     <li>Support for retrieving day, month, and year values individually.</li>
- *     <li>Formatted output in {@code YYYY-MM-DD} format.</li>
- *     <li>Computation of the day of the week using month codes and century offsets.</li>
+ *     <li>Formatted output in {@code YYYY-MM-DD} format, as a string or written into a caller's buffer.</li>
+ *     <li>Computation of the day of the week from the number of days since the epoch.</li>
  * </ul>
  *
+ * <p>
+ * A date is stored as a single packed int (see {@link #toPackedInt()}) whose natural order is
+ * the calendar order, so dates can be kept in primitive arrays and compared by subtraction.
+ * Month lengths, month names, and weekday names are looked up from tables.
+ * </p>
+ *
+ * <p>
+ * {@link #of(int, int, int)} returns a shared instance per day, so code that creates many
+ * dates only allocates and validates each distinct day once.
+ * </p>
+ *
  * <p>Dates are immutable once constructed.</p>
  *
  * @author Ryan Fiset, Larry Lin
  * @version 1.0
  */
-public class Date
+public class Date implements Comparable<Date>
 {
-    private static final int CURRENT_YEAR = 2025;
-    private static final int YEAR_1800    = 1800;
-    private static final int YEAR_1900    = 1900;
-    private static final int YEAR_2000    = 2000;
+    private static final int YEAR_1800 = 1800;
+    private static final int YEAR_2099 = 2099;
 
     // --- Constants for months ---
-    private static final int MONTHS_IN_YEAR = 12;
-    private static final int JANUARY        = 1;
-    private static final int FEBRUARY       = 2;
-    private static final int MARCH          = 3;
-    private static final int APRIL          = 4;
-    private static final int MAY            = 5;
-    private static final int JUNE           = 6;
-    private static final int JULY           = 7;
-    private static final int AUGUST         = 8;
-    private static final int SEPTEMBER      = 9;
-    private static final int OCTOBER        = 10;
-    private static final int NOVEMBER       = 11;
-    private static final int DECEMBER       = 12;
-
-    // --- Constants for month codes ---
-    private static final int JANUARY_CODE   = 1;
-    private static final int FEBRUARY_CODE  = 4;
-    private static final int MARCH_CODE     = 4;
-    private static final int APRIL_CODE     = 0;
-    private static final int MAY_CODE       = 2;
-    private static final int JUNE_CODE      = 5;
-    private static final int JULY_CODE      = 0;
-    private static final int AUGUST_CODE    = 3;
-    private static final int SEPTEMBER_CODE = 6;
-    private static final int OCTOBER_CODE   = 1;
-    private static final int NOVEMBER_CODE  = 4;
-    private static final int DECEMBER_CODE  = 6;
+    private static final int JANUARY  = 1;
+    private static final int FEBRUARY = 2;
+    private static final int DECEMBER = 12;
 
     // --- Constants for month names ---
     private static final String JANUARY_STRING   = "January";
@@ -68,13 +57,8 @@ public class Date
     private static final String DECEMBER_STRING  = "December";
 
     // --- Constants for day codes ---
-    private static final int SATURDAY_CODE  = 0;
-    private static final int SUNDAY_CODE    = 1;
-    private static final int MONDAY_CODE    = 2;
-    private static final int TUESDAY_CODE   = 3;
-    private static final int WEDNESDAY_CODE = 4;
-    private static final int THURSDAY_CODE  = 5;
-    private static final int FRIDAY_CODE    = 6;
+    private static final int SATURDAY_CODE = 0;
+    private static final int FRIDAY_CODE   = 6;
 
     // --- Constants for day names ---
     private static final String SATURDAY_STRING  = "Saturday";
@@ -96,26 +80,79 @@ public class Date
     private static final int CENTURY_DIVISOR          = 100;
     private static final int QUADRICENTENNIAL_DIVISOR = 400;
 
-    // --- Offsets and values for weekday calculation ---
-    private static final int DAY_SUMMATION_START_VALUE = 0;
-    private static final int YEAR_2000_OFFSET          = 6;
-    private static final int YEAR_1800_OFFSET          = 2;
-    private static final int JAN_FEB_LEAP_OFFSET       = 6;
-    private static final int FOUR_DIVISOR              = 4;
-    private static final int NUM_WEEK_DAYS             = 7;
+    // --- Epoch day calculation ---
+    private static final int DAYS_IN_YEAR           = 365;
+    private static final int DAYS_FROM_0000_TO_1970 = 719_528;
+    private static final int EPOCH_DAY_CODE         = 5;
+    private static final int NUM_WEEK_DAYS          = 7;
 
-    // --- Minimum valid values ---
+    // --- Bit layout of a packed date: yyyyyyyyyyy mmmm ddddd ---
+    private static final int YEAR_SHIFT  = 9;
+    private static final int MONTH_SHIFT = 5;
+    private static final int MONTH_MASK  = 0xF;
+    private static final int DAY_MASK    = 0x1F;
+
+    // --- Minimum and maximum valid values ---
     private static final int MIN_DAY  = 1;
+    private static final int MAX_DAY  = 31;
     private static final int MIN_YEAR = YEAR_1800;
+    private static final int MAX_YEAR = YEAR_2099;
+
+    // --- Layout of the shared instance cache: one slot per (year, month, day of 1-31) ---
+    private static final int MONTHS_IN_YEAR  = 12;
+    private static final int SLOTS_PER_MONTH = MAX_DAY;
+    private static final int SLOTS_PER_YEAR  = MONTHS_IN_YEAR * SLOTS_PER_MONTH;
+    private static final int CACHE_SLOTS     = (MAX_YEAR - MIN_YEAR + 1) * SLOTS_PER_YEAR;
+
+    // --- Constants for YYYY-MM-DD formatting ---
+    private static final int  FORMATTED_LENGTH = 10;
+    private static final char SEPARATOR        = '-';
+    private static final char ZERO_DIGIT       = '0';
+    private static final int  THOUSANDS        = 1000;
+    private static final int  HUNDREDS         = 100;
+    private static final int  TENS             = 10;
 
     // --- Constants for remainder ---
-    private static final int EVEN_DIVISOR  = 2;
-    private static final int HAS_REMAINDER = 1;
-    private static final int NO_REMAINDER  = 0;
+    private static final int NO_REMAINDER = 0;
+
+    // --- Lookup tables, indexed by month - 1 or by day code ---
+    private static final String[] MONTH_NAMES =
+        {
+            JANUARY_STRING, FEBRUARY_STRING, MARCH_STRING, APRIL_STRING,
+            MAY_STRING, JUNE_STRING, JULY_STRING, AUGUST_STRING,
+            SEPTEMBER_STRING, OCTOBER_STRING, NOVEMBER_STRING, DECEMBER_STRING
+        };
+
+    private static final int[] DAYS_IN_MONTH =
+        {
+            LONG_MONTH, REGULAR_FEBRUARY_DAYS, LONG_MONTH, SHORT_MONTH,
+            LONG_MONTH, SHORT_MONTH, LONG_MONTH, LONG_MONTH,
+            SHORT_MONTH, LONG_MONTH, SHORT_MONTH, LONG_MONTH
+        };
+
+    private static final int[] DAYS_BEFORE_MONTH =
+        {
+            0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334
+        };
+
+    private static final String[] WEEK_DAY_NAMES =
+        {
+            SATURDAY_STRING, SUNDAY_STRING, MONDAY_STRING, TUESDAY_STRING,
+            WEDNESDAY_STRING, THURSDAY_STRING, FRIDAY_STRING
+        };
+
+    private static final DayOfWeek[] WEEK_DAYS =
+        {
+            DayOfWeek.SATURDAY, DayOfWeek.SUNDAY, DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY
+        };
+
+    /**
+     * The epoch day of the earliest valid date, 1800-01-01.
+     */
+    static final int MIN_EPOCH_DAY = new Date(MIN_YEAR, JANUARY, MIN_DAY).toEpochDay();
 
-    private final int year;
-    private final int month;
-    private final int day;
+    private final int packed;
 
     /**
      * Constructs a new {@code Date} object after validating the provided year, month, and day.
@@ -131,9 +168,102 @@ public class Date
     {
         validateDate(year, month, day);
 
-        this.year  = year;
-        this.month = month;
-        this.day   = day;
+        this.packed = year << YEAR_SHIFT | month << MONTH_SHIFT | day;
+    }
+
+    /**
+     * Returns the shared {@code Date} for the given year, month, and day.
+     * <p>
+     * The first request for a day validates it and stores the new instance in a table; every
+     * later request for the same day returns that instance without allocating or validating.
+     * Because instances are shared, two dates from this method are equal exactly when they are
+     * the same object.
+     * </p>
+     *
+     * @param year  the year
+     * @param month the month
+     * @param day   the day of the month
+     * @return the shared date
+     * @throws IllegalArgumentException if the date is invalid
+     */
+    public static Date of(final int year,
+                          final int month,
+                          final int day)
+    {
+        final AtomicReferenceArray<Date> cache;
+        final int                        slot;
+        final Date                       cached;
+        final Date                       created;
+        final Date                       winner;
+
+        if (year < MIN_YEAR || year > MAX_YEAR ||
+            month < JANUARY || month > DECEMBER ||
+            day < MIN_DAY || day > MAX_DAY)
+        {
+            return new Date(year, month, day);
+        }
+
+        cache  = SharedDates.CACHE;
+        slot   = slotOf(year, month, day);
+        cached = cache.getAcquire(slot);
+
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        created = new Date(year, month, day);
+        winner  = cache.compareAndExchange(slot, null, created);
+
+        if (winner == null)
+        {
+            return created;
+        }
+        return winner;
+    }
+
+    /**
+     * Computes the position of a day in the table of shared dates.
+     *
+     * @param year  the year, between {@link #MIN_YEAR} and {@link #MAX_YEAR}
+     * @param month the month
+     * @param day   the day of the month
+     * @return the slot index
+     */
+    private static int slotOf(final int year,
+                              final int month,
+                              final int day)
+    {
+        return (year - MIN_YEAR) * SLOTS_PER_YEAR + (month - JANUARY) * SLOTS_PER_MONTH + day - MIN_DAY;
+    }
+
+    /**
+     * Returns the shared {@code Date} for a number of days since 1970-01-01.
+     *
+     * @param epochDay the epoch day, as returned by {@link #toEpochDay()}
+     * @return the date that many days after 1970-01-01
+     * @throws IllegalArgumentException if the epoch day is outside the valid range of dates
+     */
+    public static Date ofEpochDay(final int epochDay)
+    {
+        final LocalDate date;
+        date = LocalDate.ofEpochDay(epochDay);
+
+        return of(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+
+    /**
+     * Returns the shared {@code Date} for a value previously returned by {@link #toPackedInt()}.
+     *
+     * @param packed the packed date
+     * @return the date the packed value represents
+     * @throws IllegalArgumentException if the packed value does not hold a valid date
+     */
+    public static Date fromPackedInt(final int packed)
+    {
+        return of(packed >>> YEAR_SHIFT,
+                  packed >>> MONTH_SHIFT & MONTH_MASK,
+                  packed & DAY_MASK);
     }
 
     /**
@@ -151,14 +281,9 @@ public class Date
         final int daysInMonth;
         daysInMonth = getDaysInMonth(year, month);
 
-        if (year < MIN_YEAR || year > CURRENT_YEAR)
+        if (year < MIN_YEAR || year > MAX_YEAR)
         {
-            throw new IllegalArgumentException("Year is not between " + MIN_YEAR + " and " + CURRENT_YEAR);
-        }
-
-        if (month < JANUARY || month > DECEMBER)
-        {
-            throw new IllegalArgumentException("Month is not between " + JANUARY + " and " + DECEMBER);
+            throw new IllegalArgumentException("Year is not between " + MIN_YEAR + " and " + MAX_YEAR);
         }
 
         if (day < MIN_DAY || day > daysInMonth)
@@ -174,7 +299,7 @@ public class Date
      */
     public int getDay()
     {
-        return day;
+        return packed & DAY_MASK;
     }
 
     /**
@@ -184,7 +309,7 @@ public class Date
      */
     public int getMonth()
     {
-        return month;
+        return packed >>> MONTH_SHIFT & MONTH_MASK;
     }
 
     /**
@@ -194,172 +319,83 @@ public class Date
      */
     public int getYear()
     {
-        return year;
+        return packed >>> YEAR_SHIFT;
     }
 
     /**
-     * Returns the name of the current month represented by this instance.
+     * Returns this date packed into a single int.
+     * <p>
+     * The year, month, and day occupy the high, middle, and low bits respectively, so packed
+     * dates sort in calendar order and can be compared by subtraction.
+     * </p>
      *
-     * @return the full name of the current month (e.g., "January", "February")
+     * @return the packed date
      */
-    public String getMonthName()
+    public int toPackedInt()
     {
-        if (month == JANUARY)
-        {
-            return JANUARY_STRING;
-        }
-        else if (month == FEBRUARY)
-        {
-            return FEBRUARY_STRING;
-        }
-        else if (month == MARCH)
-        {
-            return MARCH_STRING;
-        }
-        else if (month == APRIL)
-        {
-            return APRIL_STRING;
-        }
-        else if (month == MAY)
-        {
-            return MAY_STRING;
-        }
-        else if (month == JUNE)
-        {
-            return JUNE_STRING;
-        }
-        else if (month == JULY)
-        {
-            return JULY_STRING;
-        }
-        else if (month == AUGUST)
-        {
-            return AUGUST_STRING;
-        }
-        else if (month == SEPTEMBER)
-        {
-            return SEPTEMBER_STRING;
-        }
-        else if (month == OCTOBER)
-        {
-            return OCTOBER_STRING;
-        }
-        else if (month == NOVEMBER)
-        {
-            return NOVEMBER_STRING;
-        }
-        else if (month == DECEMBER)
-        {
-            return DECEMBER_STRING;
-        }
-        else
-        {
-            throw new IllegalArgumentException("Month is not valid");
-        }
+        return packed;
     }
 
     /**
-     * Determines the number of days in a given month of a given year.
+     * Returns the number of days between 1970-01-01 and this date.
      *
-     * @param year  the year to evaluate (for leap year adjustment)
-     * @param month the month to evaluate
-     * @return the number of days in the specified month
+     * @return the epoch day, negative for dates before 1970
      */
-    private static int getDaysInMonth(final int year,
-                                      final int month)
+    public int toEpochDay()
     {
-        if (month < JANUARY || month > DECEMBER)
-        {
-            throw new IllegalArgumentException("Month is not between " + JANUARY + " and " + DECEMBER);
-        }
+        final int year;
+        final int month;
+        final int previousYear;
+        int       days;
 
-        if (month == FEBRUARY)
-        {
-            if (isLeapYear(year))
-            {
-                return LEAP_FEBRUARY_DAYS;
-            }
-            return REGULAR_FEBRUARY_DAYS;
-        }
+        year         = getYear();
+        month        = getMonth();
+        previousYear = year - 1;
 
-        if (month < AUGUST &&
-            month % EVEN_DIVISOR == HAS_REMAINDER)
-        {
-            return LONG_MONTH;
-        }
+        days = DAYS_IN_YEAR * year +
+               previousYear / LEAP_YEAR_DIVISOR -
+               previousYear / CENTURY_DIVISOR +
+               previousYear / QUADRICENTENNIAL_DIVISOR + 1;
+        days += DAYS_BEFORE_MONTH[month - 1];
+        days += getDay() - 1;
 
-        if (month >= AUGUST &&
-            month % EVEN_DIVISOR == NO_REMAINDER)
+        if (month > FEBRUARY && isLeapYear(year))
         {
-            return LONG_MONTH;
+            days++;
         }
-        return SHORT_MONTH;
+        return days - DAYS_FROM_0000_TO_1970;
     }
 
     /**
-     * Returns the month code associated with a given month.
-     * <p>
-     * Month codes are integer values used in calendar calculations
-     * (such as determining weekdays).
-     * </p>
+     * Returns the name of the current month represented by this instance.
      *
+     * @return the full name of the current month (e.g., "January", "February")
+     */
+    public String getMonthName()
+    {
+        return MONTH_NAMES[getMonth() - 1];
+    }
+
+    /**
+     * Determines the number of days in a given month of a given year.
+     *
+     * @param year  the year to evaluate (for leap year adjustment)
      * @param month the month to evaluate
-     * @return the integer code corresponding to the specified month
+     * @return the number of days in the specified month
      */
-    private static int getMonthCode(final int month)
+    static int getDaysInMonth(final int year,
+                              final int month)
     {
-        if (month == JANUARY)
-        {
-            return JANUARY_CODE;
-        }
-        else if (month == FEBRUARY)
-        {
-            return FEBRUARY_CODE;
-        }
-        else if (month == MARCH)
-        {
-            return MARCH_CODE;
-        }
-        else if (month == APRIL)
-        {
-            return APRIL_CODE;
-        }
-        else if (month == MAY)
-        {
-            return MAY_CODE;
-        }
-        else if (month == JUNE)
-        {
-            return JUNE_CODE;
-        }
-        else if (month == JULY)
-        {
-            return JULY_CODE;
-        }
-        else if (month == AUGUST)
-        {
-            return AUGUST_CODE;
-        }
-        else if (month == SEPTEMBER)
-        {
-            return SEPTEMBER_CODE;
-        }
-        else if (month == OCTOBER)
-        {
-            return OCTOBER_CODE;
-        }
-        else if (month == NOVEMBER)
-        {
-            return NOVEMBER_CODE;
-        }
-        else if (month == DECEMBER)
+        if (month < JANUARY || month > DECEMBER)
         {
-            return DECEMBER_CODE;
+            throw new IllegalArgumentException("Month is not between " + JANUARY + " and " + DECEMBER);
         }
-        else
+
+        if (month == FEBRUARY && isLeapYear(year))
         {
-            throw new IllegalArgumentException("Month is not valid");
+            return LEAP_FEBRUARY_DAYS;
         }
+        return DAYS_IN_MONTH[month - 1];
     }
 
     /**
@@ -374,38 +410,11 @@ public class Date
      */
     private static String getWeekDayName(final int dayCode)
     {
-        if (dayCode == SATURDAY_CODE)
-        {
-            return SATURDAY_STRING;
-        }
-        else if (dayCode == SUNDAY_CODE)
-        {
-            return SUNDAY_STRING;
-        }
-        else if (dayCode == MONDAY_CODE)
-        {
-            return MONDAY_STRING;
-        }
-        else if (dayCode == TUESDAY_CODE)
-        {
-            return TUESDAY_STRING;
-        }
-        else if (dayCode == WEDNESDAY_CODE)
-        {
-            return WEDNESDAY_STRING;
-        }
-        else if (dayCode == THURSDAY_CODE)
-        {
-            return THURSDAY_STRING;
-        }
-        else if (dayCode == FRIDAY_CODE)
-        {
-            return FRIDAY_STRING;
-        }
-        else
+        if (dayCode < SATURDAY_CODE || dayCode > FRIDAY_CODE)
         {
             throw new IllegalArgumentException("Day is not valid");
         }
+        return WEEK_DAY_NAMES[dayCode];
     }
 
     /**
@@ -431,82 +440,227 @@ public class Date
 
     /**
      * Returns the date formatted as {@code YYYY-MM-DD}.
+     * <p>
+     * Shared dates returned by {@link #of(int, int, int)} format themselves once and return the
+     * same string on every later call.
+     * </p>
      *
      * @return the formatted date string
      */
     public String getYYYYMMDD()
     {
-        return String.format("%04d-%02d-%02d", year, month, day);
+        final int    slot;
+        final char[] digits;
+        String       text;
+
+        slot = slotOf(getYear(), getMonth(), getDay());
+        if (SharedDates.CACHE.getAcquire(slot) != this)
+        {
+            digits = new char[FORMATTED_LENGTH];
+            writeYYYYMMDD(digits, 0);
+            return new String(digits);
+        }
+
+        text = SharedDates.TEXT[slot];
+        if (text == null)
+        {
+            digits = new char[FORMATTED_LENGTH];
+            writeYYYYMMDD(digits, 0);
+            text                   = new String(digits);
+            SharedDates.TEXT[slot] = text;
+        }
+        return text;
     }
 
     /**
-     * Computes the day of the week for this date.
+     * Appends the date formatted as {@code YYYY-MM-DD} to a {@link StringBuilder}.
      *
-     * <p>
-     * To get the day of the week, do the following seven steps for dates in the 1900s:
-     * e.g. October 31 1977:
-     * <ol>
-     *      <li>Calculate the number of twelves in 77: 6</li>
-     *      <li>Calculate the remainder from step 1: 77 - 12*6 = 77 - 72 = 5</li>
-     *      <li>Calculate the number of fours in step 2: 5/4 = 1.25, so 1</li>
-     *      <li>Add the day of the month to each step above: 31 + 6 + 5 + 1 = 43</li>
-     *      <li>Add the month code (for jfmamjjasond: 144025036146): for october it is 1: 43 + 1 = 44</li>
-     *      <li>Add the previous five numbers: (44) and mod by 7: 44%7 = 2 (44/7 = 6 remainder 2)</li>
-     *      <li>sat sun mon tue wed thu fri is 0 1 2 3 4 5 6; our 2 means Oct 31 1977 was monday</li>
-     * </ol>
-     * </p>
+     * @param destination the builder to append to
+     * @return the builder
+     */
+    public StringBuilder appendYYYYMMDD(final StringBuilder destination)
+    {
+        final int year;
+        final int month;
+        final int day;
+
+        year  = getYear();
+        month = getMonth();
+        day   = getDay();
+
+        return destination.append(digit(year / THOUSANDS))
+                          .append(digit(year / HUNDREDS))
+                          .append(digit(year / TENS))
+                          .append(digit(year))
+                          .append(SEPARATOR)
+                          .append(digit(month / TENS))
+                          .append(digit(month))
+                          .append(SEPARATOR)
+                          .append(digit(day / TENS))
+                          .append(digit(day));
+    }
+
+    /**
+     * Writes the date formatted as {@code YYYY-MM-DD} into a character array.
      *
+     * @param destination the array to write to
+     * @param offset      the position of the first character to write
+     * @return the position just after the last character written
+     * @throws IndexOutOfBoundsException if the array has fewer than ten characters after {@code offset}
+     */
+    public int writeYYYYMMDD(final char[] destination,
+                             final int offset)
+    {
+        final int year;
+        final int month;
+        final int day;
+
+        year  = getYear();
+        month = getMonth();
+        day   = getDay();
+
+        destination[offset]     = digit(year / THOUSANDS);
+        destination[offset + 1] = digit(year / HUNDREDS);
+        destination[offset + 2] = digit(year / TENS);
+        destination[offset + 3] = digit(year);
+        destination[offset + 4] = SEPARATOR;
+        destination[offset + 5] = digit(month / TENS);
+        destination[offset + 6] = digit(month);
+        destination[offset + 7] = SEPARATOR;
+        destination[offset + 8] = digit(day / TENS);
+        destination[offset + 9] = digit(day);
+
+        return offset + FORMATTED_LENGTH;
+    }
+
+    /**
+     * Writes the date formatted as {@code YYYY-MM-DD} into a {@link ByteBuffer} as ASCII,
+     * advancing the buffer's position by ten bytes.
+     *
+     * @param destination the buffer to write to
+     * @return the buffer
+     * @throws java.nio.BufferOverflowException if the buffer has fewer than ten bytes remaining
+     */
+    public ByteBuffer writeYYYYMMDD(final ByteBuffer destination)
+    {
+        final int year;
+        final int month;
+        final int day;
+
+        year  = getYear();
+        month = getMonth();
+        day   = getDay();
+
+        return destination.put((byte) digit(year / THOUSANDS))
+                          .put((byte) digit(year / HUNDREDS))
+                          .put((byte) digit(year / TENS))
+                          .put((byte) digit(year))
+                          .put((byte) SEPARATOR)
+                          .put((byte) digit(month / TENS))
+                          .put((byte) digit(month))
+                          .put((byte) SEPARATOR)
+                          .put((byte) digit(day / TENS))
+                          .put((byte) digit(day));
+    }
+
+    /**
+     * Returns the character for the last decimal digit of a non-negative number.
+     *
+     * @param value the number
+     * @return the character {@code '0'} through {@code '9'}
+     */
+    private static char digit(final int value)
+    {
+        return (char) (ZERO_DIGIT + value % TENS);
+    }
+
+    /**
+     * Computes the day code for this date: 0 for Saturday through 6 for Friday.
      * <p>
-     * Extra notes:
-     * <ul>
-     *      <li>for January/February dates in leap years, add 6 at the start</li>
-     *      <li>for all dates in the 2000s, add 6 at the start</li>
-     *      <li>for all dates in the 1800s, add 2 at the start</li>
-     * </ul>
+     * 1970-01-01 was a Thursday, so the code is the epoch day offset by Thursday's code,
+     * taken modulo the number of days in a week.
      * </p>
      *
+     * @return the day code
+     */
+    private int getDayCode()
+    {
+        return Math.floorMod(toEpochDay() + EPOCH_DAY_CODE, NUM_WEEK_DAYS);
+    }
+
+    /**
+     * Computes the day of the week for this date.
+     *
+     * @return the day of the week
+     */
+    public DayOfWeek getDayOfWeek()
+    {
+        return WEEK_DAYS[getDayCode()];
+    }
+
+    /**
+     * Computes the name of the day of the week for this date.
+     *
      * @return the name of the day of the week (e.g., "Monday")
      */
     public String getDayOfTheWeek()
     {
-        int dayFromSummation;
-        final int numTwelves;
-        final int numTwelvesRemainder;
-        final int foursInRemainder;
-        final int lastTwoDigitsOfYear;
-
-        dayFromSummation = DAY_SUMMATION_START_VALUE;
-        if (month == JANUARY || month == FEBRUARY)
-        {
-            if (isLeapYear(year))
-            {
-                dayFromSummation += JAN_FEB_LEAP_OFFSET;
-            }
-        }
+        return getWeekDayName(getDayCode());
+    }
 
-        if (year >= YEAR_2000)
+    /**
+     * Compares this date to another in calendar order.
+     *
+     * @param other the date to compare to
+     * @return a negative number, zero, or a positive number if this date is before,
+     *         the same as, or after the other date
+     */
+    @Override
+    public int compareTo(final Date other)
+    {
+        return packed - other.packed;
+    }
+
+    /**
+     * Checks whether another object is a {@code Date} for the same day.
+     *
+     * @param obj the object to compare to
+     * @return {@code true} if the object is a {@code Date} with the same year, month, and day
+     */
+    @Override
+    public boolean equals(final Object obj)
+    {
+        if (this == obj)
         {
-            dayFromSummation += YEAR_2000_OFFSET;
+            return true;
         }
-        else if (year < YEAR_1900)
+
+        if (!(obj instanceof Date))
         {
-            dayFromSummation += YEAR_1800_OFFSET;
+            return false;
         }
 
-        lastTwoDigitsOfYear = year % CENTURY_DIVISOR;
-
-        numTwelves = lastTwoDigitsOfYear / MONTHS_IN_YEAR;
-        dayFromSummation += numTwelves;
-
-        numTwelvesRemainder = lastTwoDigitsOfYear - MONTHS_IN_YEAR * numTwelves;
-        dayFromSummation += numTwelvesRemainder;
-
-        foursInRemainder = numTwelvesRemainder / FOUR_DIVISOR;
-        dayFromSummation += foursInRemainder;
+        return packed == ((Date) obj).packed;
+    }
 
-        dayFromSummation += day;
-        dayFromSummation += getMonthCode(month);
+    /**
+     * Returns a hash code based on the year, month, and day.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode()
+    {
+        return packed;
+    }
 
-        return getWeekDayName(dayFromSummation % NUM_WEEK_DAYS);
+    /**
+     * Holds the table of shared dates and their formatted strings, which are only allocated
+     * once they are first used.
+     */
+    private static final class SharedDates
+    {
+        private static final AtomicReferenceArray<Date> CACHE = new AtomicReferenceArray<>(CACHE_SLOTS);
+        private static final String[]                   TEXT  = new String[CACHE_SLOTS];
     }
-}
\ No newline at end of file
+}
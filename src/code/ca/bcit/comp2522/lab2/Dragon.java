@@ -1,5 +1,10 @@
 package ca.bcit.comp2522.lab2;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents a dragon, a type of {@link Creature} that has fire power
@@ -10,18 +15,35 @@ package ca.bcit.comp2522.lab2;
  * and can restore its fire power. Fire power is consumed when
  * breathing fire and is bounded by defined minimum and maximum values.
  * </p>
+ * <p>
+ * Fire power is updated with compare-and-set, so a dragon may be used from several threads.
+ * </p>
  *
  * @author Ryan Fiset, Larry Lin
  * @version 1.0
  */
-public class Dragon extends Creature
+public final class Dragon extends Creature
 {
-    private static final int MIN_FIRE_POWER    = 0;
-    private static final int MAX_FIRE_POWER    = 100;
-    private static final int FIRE_POWER_COST   = 10;
-    private static final int FIRE_POWER_DAMAGE = 20;
+    static final int MIN_FIRE_POWER    = 0;
+    static final int MAX_FIRE_POWER    = 100;
+    static final int FIRE_POWER_COST   = 10;
+    static final int FIRE_POWER_DAMAGE = 20;
 
-    private int firePower;
+    private static final VarHandle FIRE_POWER;
+
+    private volatile int firePower;
+
+    static
+    {
+        try
+        {
+            FIRE_POWER = MethodHandles.lookup().findVarHandle(Dragon.class, "firePower", int.class);
+        }
+        catch (final ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * Constructs a new {@code Dragon} with the given attributes.
@@ -40,7 +62,7 @@ public class Dragon extends Creature
                   int age,
                   int firePower)
     {
-        super(name, birthDate, age);
+        super(name, birthDate, age, CreatureKind.DRAGON);
 
         validateFirePower(firePower);
         this.firePower = firePower;
@@ -53,26 +75,29 @@ public class Dragon extends Creature
      * @throws IllegalArgumentException if fire power is less than {@link #MIN_FIRE_POWER}
      *                                  or greater than {@link #MAX_FIRE_POWER}
      */
-    private static void validateFirePower(final int firePower)
+    static void validateFirePower(final int firePower)
     {
         if (firePower < MIN_FIRE_POWER ||
             firePower > MAX_FIRE_POWER)
         {
+            CombatMetrics.recordValidationFailure();
             throw new IllegalArgumentException("Fire power must be between " + MIN_FIRE_POWER + " and " + MAX_FIRE_POWER);
         }
     }
 
     /**
-     * Prints the details of the dragon to standard output.
+     * Appends the details of the dragon to a buffer.
      * <p>
      * Details include all creature information plus fire power.
      * </p>
+     *
+     * @param details the buffer to append to
      */
     @Override
-    public void getDetails()
+    protected void appendDetails(final StringBuilder details)
     {
-        super.getDetails();
-        System.out.println("Fire power: " + firePower);
+        super.appendDetails(details);
+        details.append("Fire power: ").append(firePower).append(System.lineSeparator());
     }
 
     /**
@@ -85,6 +110,41 @@ public class Dragon extends Creature
         return firePower;
     }
 
+    /**
+     * Gets the fire power of the dragon.
+     *
+     * @return the dragon's fire power
+     */
+    @Override
+    public int getResource()
+    {
+        return getFirePower();
+    }
+
+    /**
+     * Breathes fire on a target.
+     *
+     * @param target the creature to attack, must not be null
+     * @return the outcome of {@link #tryBreatheFire(Creature)}
+     */
+    @Override
+    public AttackOutcome attack(final Creature target)
+    {
+        return tryBreatheFire(target);
+    }
+
+    /**
+     * Breathes fire on a group of targets at once.
+     *
+     * @param targets the creatures to attack, must not be null or contain null
+     * @return the outcome of {@link #tryBreatheFire(Collection)}
+     */
+    @Override
+    public AttackOutcome attack(final Collection<? extends Creature> targets)
+    {
+        return tryBreatheFire(targets);
+    }
+
     /**
      * Breathes fire on a target creature, reducing the dragon's fire power
      * and dealing damage to the target.
@@ -95,14 +155,123 @@ public class Dragon extends Creature
      */
     public void breatheFire(final Creature target) throws LowFirePowerException
     {
-        if (firePower < FIRE_POWER_COST)
+        if (tryBreatheFire(target) == AttackOutcome.INSUFFICIENT_RESOURCE)
         {
-            throw new LowFirePowerException("Insufficient fire power to breathe fire");
+            throw new LowFirePowerException("Insufficient fire power to breathe fire", FILL_STACK_TRACES);
         }
-        firePower -= FIRE_POWER_COST;
-        target.takeDamage(FIRE_POWER_DAMAGE);
-        System.out.println(getName() + " breathes fire on " + target.getName() + " for " + FIRE_POWER_DAMAGE + " " +
-                           "damage");
+    }
+
+    /**
+     * Breathes fire on a target creature if the dragon has enough fire power,
+     * reporting a lack of fire power as an outcome instead of an exception.
+     *
+     * @param target the creature to breathe fire on, must not be null
+     * @return {@link AttackOutcome#SUCCESS} if the attack was made, or
+     *         {@link AttackOutcome#INSUFFICIENT_RESOURCE} if the dragon's fire power was too low
+     */
+    public AttackOutcome tryBreatheFire(final Creature target)
+    {
+        final long    start;
+        final int     current;
+        final boolean killed;
+
+        start   = CombatMetrics.startTimer();
+        current = changeFirePower(FIRE_POWER_COST, -FIRE_POWER_COST);
+
+        if (current < FIRE_POWER_COST)
+        {
+            CombatMetrics.recordFailedAttack(CombatEngine.ACTION_BREATHE_FIRE);
+            getCombatEventListener().onAttackFailed(this, CombatEngine.ACTION_BREATHE_FIRE, target, current);
+            return AttackOutcome.INSUFFICIENT_RESOURCE;
+        }
+
+        killed = target.dealDamage(FIRE_POWER_DAMAGE);
+        getCombatEventListener().onAttack(this,
+                                          CombatEngine.ACTION_BREATHE_FIRE,
+                                          target,
+                                          FIRE_POWER_DAMAGE,
+                                          current - FIRE_POWER_COST,
+                                          killed);
+        CombatMetrics.recordAttack(CombatEngine.ACTION_BREATHE_FIRE, start, killed);
+        return AttackOutcome.SUCCESS;
+    }
+
+    /**
+     * Breathes fire on a group of creatures at once, paying for a single breath and dealing
+     * the full damage to every target.
+     *
+     * @param targets the creatures to breathe fire on, must not be null or contain null
+     * @throws LowFirePowerException if the dragon does not have enough fire power
+     *                               to perform the attack
+     */
+    public void breatheFire(final Collection<? extends Creature> targets) throws LowFirePowerException
+    {
+        if (tryBreatheFire(targets) == AttackOutcome.INSUFFICIENT_RESOURCE)
+        {
+            throw new LowFirePowerException("Insufficient fire power to breathe fire", FILL_STACK_TRACES);
+        }
+    }
+
+    /**
+     * Breathes fire on a group of creatures at once if the dragon has enough fire power for a
+     * single breath, reporting a lack of fire power as an outcome instead of an exception.
+     *
+     * @param targets the creatures to breathe fire on, must not be null or contain null
+     * @return {@link AttackOutcome#SUCCESS} if the attack was made, or
+     *         {@link AttackOutcome#INSUFFICIENT_RESOURCE} if the dragon's fire power was too low
+     */
+    public AttackOutcome tryBreatheFire(final Collection<? extends Creature> targets)
+    {
+        final long start;
+        final int  current;
+
+        start   = CombatMetrics.startTimer();
+        current = changeFirePower(FIRE_POWER_COST, -FIRE_POWER_COST);
+
+        if (current < FIRE_POWER_COST)
+        {
+            CombatMetrics.recordFailedAttack(CombatEngine.ACTION_BREATHE_FIRE);
+            getCombatEventListener().onAttackFailed(this, CombatEngine.ACTION_BREATHE_FIRE, null, current);
+            return AttackOutcome.INSUFFICIENT_RESOURCE;
+        }
+
+        strikeAll(CombatEngine.ACTION_BREATHE_FIRE, targets, FIRE_POWER_DAMAGE, current - FIRE_POWER_COST);
+        CombatMetrics.recordAttack(CombatEngine.ACTION_BREATHE_FIRE, start, false);
+        return AttackOutcome.SUCCESS;
+    }
+
+    /**
+     * Breathes fire over an area of an arena, hitting every living creature within the radius
+     * except the dragon itself for the cost of a single breath. Creatures that are already dead
+     * are not hit, and if no living creature is in range the dragon does not breathe at all.
+     *
+     * @param arena  the arena to find targets in, must not be null
+     * @param x      the x position of the centre of the area
+     * @param y      the y position of the centre of the area
+     * @param radius the radius of the area, must not be negative
+     * @return the number of creatures hit
+     * @throws LowFirePowerException    if the dragon does not have enough fire power
+     *                                  to perform the attack
+     * @throws IllegalArgumentException if the radius is negative
+     */
+    public int breatheFire(final SpatialGrid arena,
+                           final float x,
+                           final float y,
+                           final float radius) throws LowFirePowerException
+    {
+        final List<Creature> inRange;
+
+        inRange = new ArrayList<>();
+        arena.withinRadius(x, y, radius, inRange);
+        inRange.removeIf(target -> target == this || !target.isAlive());
+
+        if (inRange.isEmpty())
+        {
+            return 0;
+        }
+
+        breatheFire(inRange);
+        return inRange.size();
     }
 
     /**
@@ -121,10 +290,68 @@ public class Dragon extends Creature
             throw new IllegalArgumentException("Restore fire power cannot be less than " + MIN_FIRE_POWER);
         }
 
-        firePower += amount;
-        if (firePower > MAX_FIRE_POWER)
+        changeFirePower(MIN_FIRE_POWER, amount);
+    }
+
+    /**
+     * Changes the dragon's fire power with compare-and-set, unless it is below a required amount.
+     * If a journal is attached, the change is made and recorded while holding the dragon's own
+     * lock, so its records are in the order its changes were made.
+     *
+     * @param required the least fire power the change needs
+     * @param change   the amount to add, negative to spend
+     * @return the fire power before the change, below {@code required} if nothing was changed
+     */
+    private int changeFirePower(final int required,
+                               final int change)
+    {
+        final CombatJournal attached;
+        attached = journal;
+
+        if (attached == null)
+        {
+            return compareAndSetFirePower(required, change);
+        }
+
+        synchronized (this)
         {
-            firePower = MAX_FIRE_POWER;
+            final int previous;
+            final int updated;
+
+            previous = compareAndSetFirePower(required, change);
+            updated  = Math.min(previous + change, MAX_FIRE_POWER);
+
+            if (previous >= required && updated != previous)
+            {
+                attached.record(CombatJournal.OP_RESOURCE, journalIndex, previous, updated);
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Changes the dragon's fire power with compare-and-set, unless it is below a required amount,
+     * retrying until no other change intervenes.
+     *
+     * @param required the least fire power the change needs
+     * @param change   the amount to add, negative to spend
+     * @return the fire power before the change, below {@code required} if nothing was changed
+     */
+    private int compareAndSetFirePower(final int required,
+                                      final int change)
+    {
+        int current;
+
+        do
+        {
+            current = firePower;
+            if (current < required)
+            {
+                return current;
+            }
         }
+        while (!FIRE_POWER.compareAndSet(this, current, Math.min(current + change, MAX_FIRE_POWER)));
+
+        return current;
     }
 }
\ No newline at end of file
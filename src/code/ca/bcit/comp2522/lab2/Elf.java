@@ -1,5 +1,9 @@
 package ca.bcit.comp2522.lab2;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
 /**
  * Represents an elf, a type of {@link Creature} that has mana
  * in addition to standard creature attributes such as name,
@@ -9,18 +13,35 @@ package ca.bcit.comp2522.lab2;
  * in the process. Mana can be restored, but is bounded by defined
  * minimum and maximum values.
  * </p>
+ * <p>
+ * Mana is updated with compare-and-set, so an elf may be used from several threads.
+ * </p>
  *
  * @author Ryan Fiset, Larry Lin
  * @version 1.0
  */
-public class Elf extends Creature
+public final class Elf extends Creature
 {
-    private static final int MIN_MANA     = 0;
-    private static final int MAX_MANA     = 50;
-    private static final int MANA_COST    = 5;
-    private static final int SPELL_DAMAGE = 10;
+    static final int MIN_MANA     = 0;
+    static final int MAX_MANA     = 50;
+    static final int MANA_COST    = 5;
+    static final int SPELL_DAMAGE = 10;
 
-    private int mana;
+    private static final VarHandle MANA;
+
+    private volatile int mana;
+
+    static
+    {
+        try
+        {
+            MANA = MethodHandles.lookup().findVarHandle(Elf.class, "mana", int.class);
+        }
+        catch (final ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * Constructs a new {@code Elf} with the given attributes.
@@ -40,7 +61,7 @@ public class Elf extends Creature
                final int health,
                final int mana)
     {
-        super(name, dateOfBirth, health);
+        super(name, dateOfBirth, health, CreatureKind.ELF);
 
         validateMana(mana);
         this.mana = mana;
@@ -53,26 +74,29 @@ public class Elf extends Creature
      * @throws IllegalArgumentException if mana is less than {@link #MIN_MANA}
      *                                  or greater than {@link #MAX_MANA}
      */
-    private static void validateMana(final int mana)
+    static void validateMana(final int mana)
     {
         if (mana < MIN_MANA ||
             mana > MAX_MANA)
         {
+            CombatMetrics.recordValidationFailure();
             throw new IllegalArgumentException("Mana must be between " + MIN_MANA + " and " + MAX_MANA);
         }
     }
 
     /**
-     * Prints the details of the elf to standard output.
+     * Appends the details of the elf to a buffer.
      * <p>
      * Details include all creature information plus mana.
      * </p>
+     *
+     * @param details the buffer to append to
      */
     @Override
-    public void getDetails()
+    protected void appendDetails(final StringBuilder details)
     {
-        super.getDetails();
-        System.out.println("Mana: " + mana);
+        super.appendDetails(details);
+        details.append("Mana: ").append(mana).append(System.lineSeparator());
     }
 
     /**
@@ -85,6 +109,41 @@ public class Elf extends Creature
         return mana;
     }
 
+    /**
+     * Gets the mana of the elf.
+     *
+     * @return the elf's mana
+     */
+    @Override
+    public int getResource()
+    {
+        return getMana();
+    }
+
+    /**
+     * Casts a spell on a target.
+     *
+     * @param target the creature to attack, must not be null
+     * @return the outcome of {@link #tryCastSpell(Creature)}
+     */
+    @Override
+    public AttackOutcome attack(final Creature target)
+    {
+        return tryCastSpell(target);
+    }
+
+    /**
+     * Casts a spell on a group of targets at once.
+     *
+     * @param targets the creatures to attack, must not be null or contain null
+     * @return the outcome of {@link #tryCastSpell(Collection)}
+     */
+    @Override
+    public AttackOutcome attack(final Collection<? extends Creature> targets)
+    {
+        return tryCastSpell(targets);
+    }
+
 
     /**
      * Casts a spell on a target creature, reducing the elf's mana
@@ -96,14 +155,83 @@ public class Elf extends Creature
      */
     public void castSpell(final Creature target) throws LowManaException
     {
-        if (mana < MANA_COST)
+        if (tryCastSpell(target) == AttackOutcome.INSUFFICIENT_RESOURCE)
+        {
+            throw new LowManaException("Insufficient mana to cast", FILL_STACK_TRACES);
+        }
+    }
+
+    /**
+     * Casts a spell on a target creature if the elf has enough mana,
+     * reporting a lack of mana as an outcome instead of an exception.
+     *
+     * @param target the creature to cast the spell on, must not be null
+     * @return {@link AttackOutcome#SUCCESS} if the spell was cast, or
+     *         {@link AttackOutcome#INSUFFICIENT_RESOURCE} if the elf's mana was too low
+     */
+    public AttackOutcome tryCastSpell(final Creature target)
+    {
+        final long    start;
+        final int     current;
+        final boolean killed;
+
+        start   = CombatMetrics.startTimer();
+        current = changeMana(MANA_COST, -MANA_COST);
+
+        if (current < MANA_COST)
+        {
+            CombatMetrics.recordFailedAttack(CombatEngine.ACTION_CAST_SPELL);
+            getCombatEventListener().onAttackFailed(this, CombatEngine.ACTION_CAST_SPELL, target, current);
+            return AttackOutcome.INSUFFICIENT_RESOURCE;
+        }
+
+        killed = target.dealDamage(SPELL_DAMAGE);
+        getCombatEventListener().onAttack(this, CombatEngine.ACTION_CAST_SPELL, target, SPELL_DAMAGE, current - MANA_COST, killed);
+        CombatMetrics.recordAttack(CombatEngine.ACTION_CAST_SPELL, start, killed);
+        return AttackOutcome.SUCCESS;
+    }
+
+    /**
+     * Casts a spell on a group of creatures at once, paying the mana for a single spell and
+     * dealing the full damage to every target.
+     *
+     * @param targets the creatures to cast the spell on, must not be null or contain null
+     * @throws LowManaException if the elf does not have enough mana to cast the spell
+     */
+    public void castSpell(final Collection<? extends Creature> targets) throws LowManaException
+    {
+        if (tryCastSpell(targets) == AttackOutcome.INSUFFICIENT_RESOURCE)
         {
-            throw new LowManaException("Insufficient mana to cast");
+            throw new LowManaException("Insufficient mana to cast", FILL_STACK_TRACES);
         }
+    }
+
+    /**
+     * Casts a spell on a group of creatures at once if the elf has enough mana for a single
+     * spell, reporting a lack of mana as an outcome instead of an exception.
+     *
+     * @param targets the creatures to cast the spell on, must not be null or contain null
+     * @return {@link AttackOutcome#SUCCESS} if the spell was cast, or
+     *         {@link AttackOutcome#INSUFFICIENT_RESOURCE} if the elf's mana was too low
+     */
+    public AttackOutcome tryCastSpell(final Collection<? extends Creature> targets)
+    {
+        final long start;
+        final int  current;
 
-        mana -= MANA_COST;
-        target.takeDamage(SPELL_DAMAGE);
-        System.out.println(getName() + " casts a spell on " + target.getName() + " for " + SPELL_DAMAGE + " damage!");
+        start   = CombatMetrics.startTimer();
+        current = changeMana(MANA_COST, -MANA_COST);
+
+        if (current < MANA_COST)
+        {
+            CombatMetrics.recordFailedAttack(CombatEngine.ACTION_CAST_SPELL);
+            getCombatEventListener().onAttackFailed(this, CombatEngine.ACTION_CAST_SPELL, null, current);
+            return AttackOutcome.INSUFFICIENT_RESOURCE;
+        }
+
+        strikeAll(CombatEngine.ACTION_CAST_SPELL, targets, SPELL_DAMAGE, current - MANA_COST);
+        CombatMetrics.recordAttack(CombatEngine.ACTION_CAST_SPELL, start, false);
+        return AttackOutcome.SUCCESS;
     }
 
     /**
@@ -122,10 +250,68 @@ public class Elf extends Creature
             throw new IllegalArgumentException("Restore amount cannot be less than " + MIN_MANA);
         }
 
-        mana += amount;
-        if (mana > MAX_MANA)
+        changeMana(MIN_MANA, amount);
+    }
+
+    /**
+     * Changes the elf's mana with compare-and-set, unless it is below a required amount.
+     * If a journal is attached, the change is made and recorded while holding the elf's own
+     * lock, so its records are in the order its changes were made.
+     *
+     * @param required the least mana the change needs
+     * @param change   the amount to add, negative to spend
+     * @return the mana before the change, below {@code required} if nothing was changed
+     */
+    private int changeMana(final int required,
+                          final int change)
+    {
+        final CombatJournal attached;
+        attached = journal;
+
+        if (attached == null)
         {
-            mana = MAX_MANA;
+            return compareAndSetMana(required, change);
+        }
+
+        synchronized (this)
+        {
+            final int previous;
+            final int updated;
+
+            previous = compareAndSetMana(required, change);
+            updated  = Math.min(previous + change, MAX_MANA);
+
+            if (previous >= required && updated != previous)
+            {
+                attached.record(CombatJournal.OP_RESOURCE, journalIndex, previous, updated);
+            }
+            return previous;
         }
     }
+
+    /**
+     * Changes the elf's mana with compare-and-set, unless it is below a required amount,
+     * retrying until no other change intervenes.
+     *
+     * @param required the least mana the change needs
+     * @param change   the amount to add, negative to spend
+     * @return the mana before the change, below {@code required} if nothing was changed
+     */
+    private int compareAndSetMana(final int required,
+                                 final int change)
+    {
+        int current;
+
+        do
+        {
+            current = mana;
+            if (current < required)
+            {
+                return current;
+            }
+        }
+        while (!MANA.compareAndSet(this, current, Math.min(current + change, MAX_MANA)));
+
+        return current;
+    }
 }
\ No newline at end of file
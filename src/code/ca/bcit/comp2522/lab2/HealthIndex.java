@@ -0,0 +1,451 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Tracks which registered creatures are alive and roughly how healthy they are, updated by the
+ * creatures themselves as they take damage and heal.
+ * <p>
+ * The index keeps one bit per creature id for being alive, and one bit per id in each of
+ * {@link #BUCKET_COUNT} health buckets covering the living health range. It also counts the
+ * living creatures of each kind. Every successful change to a registered creature's health
+ * reports the old and new values here, and only the bits whose answer changed are touched, so
+ * keeping the index up to date costs a striped lock and a few atomic operations per change that
+ * crosses a bucket and nothing for one that does not.
+ * </p>
+ * <p>
+ * Health changes are lock-free, so two changes to the same creature can report out of order.
+ * Each bit update therefore rereads the creature's health after writing and writes again until
+ * the bit agrees with it. Once the changes stop, every bit and count matches the creatures
+ * exactly; while they are in flight a bit may briefly say a creature is in a bucket it just
+ * left, so queries check each creature they find.
+ * </p>
+ * <p>
+ * A change can also be reported just as its creature is removed. Adding, removing, and
+ * reporting for an id therefore hold one of a small set of striped locks, and a report is
+ * ignored unless the creature is still tracked here under that id. A removed creature can then
+ * never set bits or counts again, even after its id has been given to another creature.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+final class HealthIndex
+{
+    /**
+     * The width of each health bucket.
+     */
+    static final int BUCKET_WIDTH = 10;
+
+    /**
+     * The number of health buckets, covering health just above {@link Creature#MIN_HEALTH}
+     * up to {@link Creature#MAX_HEALTH}.
+     */
+    static final int BUCKET_COUNT = (Creature.MAX_HEALTH - Creature.MIN_HEALTH) / BUCKET_WIDTH;
+
+    private static final int NO_BUCKET  = -1;
+    private static final int LOCK_COUNT = 64;
+    private static final int LOCK_MASK  = LOCK_COUNT - 1;
+
+    private final AtomicBitSet       alive;
+    private final AtomicBitSet[]     buckets;
+    private final AtomicIntegerArray aliveByKind;
+    private final Object[]           locks;
+
+    /**
+     * Constructs an empty {@code HealthIndex}.
+     */
+    HealthIndex()
+    {
+        alive       = new AtomicBitSet();
+        buckets     = new AtomicBitSet[BUCKET_COUNT];
+        aliveByKind = new AtomicIntegerArray(CreatureKind.values().length);
+        locks       = new Object[LOCK_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            buckets[i] = new AtomicBitSet();
+        }
+
+        for (int i = 0; i < LOCK_COUNT; i++)
+        {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Starts tracking a creature under an id.
+     *
+     * @param creature the creature, not tracked by any index
+     * @param id       the creature's id
+     */
+    void add(final Creature creature,
+             final int id)
+    {
+        synchronized (lockFor(id))
+        {
+            final int bucket;
+
+            creature.healthIndexId = id;
+            creature.healthIndex   = this;
+
+            syncAlive(creature, id);
+
+            bucket = bucketOf(creature.getHealth());
+            if (bucket != NO_BUCKET)
+            {
+                syncBucket(creature, id, bucket);
+            }
+        }
+    }
+
+    /**
+     * Stops tracking a creature. Changes to its health reported afterwards are ignored.
+     *
+     * @param creature the creature
+     * @param id       the creature's id
+     */
+    void remove(final Creature creature,
+                final int id)
+    {
+        synchronized (lockFor(id))
+        {
+            creature.healthIndex = null;
+
+            if (alive.set(id, false))
+            {
+                aliveByKind.decrementAndGet(creature.getKind().ordinal());
+            }
+
+            for (final AtomicBitSet bucket : buckets)
+            {
+                bucket.set(id, false);
+            }
+        }
+    }
+
+    /**
+     * Updates the index after a tracked creature's health has changed. Does nothing if the
+     * creature has been removed, or is no longer tracked under the id.
+     *
+     * @param creature  the creature
+     * @param id        the creature's id when the change was made
+     * @param oldHealth the health before the change
+     * @param newHealth the health after the change
+     */
+    void onHealthChanged(final Creature creature,
+                         final int id,
+                         final int oldHealth,
+                         final int newHealth)
+    {
+        final boolean aliveChanged;
+        final int     oldBucket;
+        final int     newBucket;
+
+        aliveChanged = (oldHealth > Creature.MIN_HEALTH) != (newHealth > Creature.MIN_HEALTH);
+        oldBucket    = bucketOf(oldHealth);
+        newBucket    = bucketOf(newHealth);
+
+        if (!aliveChanged && oldBucket == newBucket)
+        {
+            return;
+        }
+
+        synchronized (lockFor(id))
+        {
+            if (creature.healthIndex != this || creature.healthIndexId != id)
+            {
+                return;
+            }
+
+            if (aliveChanged)
+            {
+                syncAlive(creature, id);
+            }
+
+            if (oldBucket != newBucket)
+            {
+                if (newBucket != NO_BUCKET)
+                {
+                    syncBucket(creature, id, newBucket);
+                }
+                if (oldBucket != NO_BUCKET)
+                {
+                    syncBucket(creature, id, oldBucket);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the living creatures.
+     *
+     * @return the number of living creatures
+     */
+    int countAlive()
+    {
+        int count;
+        count = 0;
+
+        for (int i = 0; i < aliveByKind.length(); i++)
+        {
+            count += aliveByKind.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the living creatures of one kind.
+     *
+     * @param kind the kind
+     * @return the number of living creatures of that kind
+     */
+    int countAlive(final CreatureKind kind)
+    {
+        return aliveByKind.get(kind.ordinal());
+    }
+
+    /**
+     * Passes the id of every creature marked alive to an action, in increasing order.
+     *
+     * @param limit  one past the highest id to visit
+     * @param action the action to run for each id
+     */
+    void forEachAlive(final int limit,
+                      final IntConsumer action)
+    {
+        final int words;
+        words = AtomicBitSet.wordsFor(limit);
+
+        for (int word = 0; word < words; word++)
+        {
+            forEachBit(word, alive.getWord(word), action);
+        }
+    }
+
+    /**
+     * Passes the id of every creature marked as being in a bucket that holds health below a
+     * threshold to an action, in increasing order. The last bucket visited may also hold
+     * creatures at or above the threshold.
+     *
+     * @param health the threshold
+     * @param limit  one past the highest id to visit
+     * @param action the action to run for each id
+     */
+    void forEachBelow(final int health,
+                      final int limit,
+                      final IntConsumer action)
+    {
+        final int lastBucket;
+        final int words;
+
+        if (health <= Creature.MIN_HEALTH + 1)
+        {
+            return;
+        }
+
+        lastBucket = Math.min(bucketOf(health - 1), BUCKET_COUNT - 1);
+        words      = AtomicBitSet.wordsFor(limit);
+
+        for (int word = 0; word < words; word++)
+        {
+            long bits;
+            bits = 0L;
+
+            for (int bucket = 0; bucket <= lastBucket; bucket++)
+            {
+                bits |= buckets[bucket].getWord(word);
+            }
+            forEachBit(word, bits, action);
+        }
+    }
+
+    /**
+     * Sets a creature's alive bit to match the creature, adjusting its kind's count if the bit
+     * changes, and repeats until the creature agrees with the bit written.
+     *
+     * @param creature the creature
+     * @param id       the creature's id
+     */
+    private void syncAlive(final Creature creature,
+                           final int id)
+    {
+        boolean isAlive;
+
+        do
+        {
+            isAlive = creature.isAlive();
+
+            if (alive.set(id, isAlive))
+            {
+                aliveByKind.addAndGet(creature.getKind().ordinal(), isAlive ? 1 : -1);
+            }
+        }
+        while (creature.isAlive() != isAlive);
+    }
+
+    /**
+     * Sets a creature's bit in one bucket to match the creature, and repeats until the creature
+     * agrees with the bit written.
+     *
+     * @param creature the creature
+     * @param id       the creature's id
+     * @param bucket   the bucket
+     */
+    private void syncBucket(final Creature creature,
+                            final int id,
+                            final int bucket)
+    {
+        boolean inBucket;
+
+        do
+        {
+            inBucket = bucketOf(creature.getHealth()) == bucket;
+            buckets[bucket].set(id, inBucket);
+        }
+        while ((bucketOf(creature.getHealth()) == bucket) != inBucket);
+    }
+
+    /**
+     * Gets the lock guarding the bits and counts of an id.
+     *
+     * @param id the id
+     * @return the lock
+     */
+    private Object lockFor(final int id)
+    {
+        return locks[id & LOCK_MASK];
+    }
+
+    /**
+     * Finds the bucket holding a health value.
+     *
+     * @param health the health
+     * @return the bucket, or {@link #NO_BUCKET} if the health is not above {@link Creature#MIN_HEALTH}
+     */
+    private static int bucketOf(final int health)
+    {
+        if (health <= Creature.MIN_HEALTH)
+        {
+            return NO_BUCKET;
+        }
+        return (health - Creature.MIN_HEALTH - 1) / BUCKET_WIDTH;
+    }
+
+    /**
+     * Passes the id of every set bit in a word to an action.
+     *
+     * @param word   the index of the word
+     * @param bits   the word's bits
+     * @param action the action to run for each id
+     */
+    private static void forEachBit(final int word,
+                                   final long bits,
+                                   final IntConsumer action)
+    {
+        long remaining;
+        remaining = bits;
+
+        while (remaining != 0L)
+        {
+            action.accept(word * Long.SIZE + Long.numberOfTrailingZeros(remaining));
+            remaining &= remaining - 1;
+        }
+    }
+
+    /**
+     * A bit set over creature ids that many threads can update at once.
+     * <p>
+     * Bits are stored in fixed-size pages that are created the first time a bit in them is set,
+     * so the set never has to be copied to grow and concurrent updates are never lost.
+     * </p>
+     */
+    private static final class AtomicBitSet
+    {
+        private static final int PAGE_SHIFT     = 12;
+        private static final int WORDS_PER_PAGE = 1 << PAGE_SHIFT;
+        private static final int WORD_SHIFT     = 6;
+        private static final int PAGE_COUNT     = (Integer.MAX_VALUE >>> (PAGE_SHIFT + WORD_SHIFT)) + 1;
+
+        private final AtomicReferenceArray<AtomicLongArray> pages;
+
+        /**
+         * Constructs an empty {@code AtomicBitSet}.
+         */
+        private AtomicBitSet()
+        {
+            pages = new AtomicReferenceArray<>(PAGE_COUNT);
+        }
+
+        /**
+         * Counts the words needed to hold a number of bits.
+         *
+         * @param bits the number of bits
+         * @return the number of words
+         */
+        private static int wordsFor(final int bits)
+        {
+            return (int) (((long) bits + Long.SIZE - 1) >>> WORD_SHIFT);
+        }
+
+        /**
+         * Sets or clears a bit.
+         *
+         * @param index the bit's index, not negative
+         * @param value {@code true} to set the bit, {@code false} to clear it
+         * @return {@code true} if the bit changed
+         */
+        private boolean set(final int index,
+                            final boolean value)
+        {
+            final int       word;
+            final long      mask;
+            AtomicLongArray page;
+            long            current;
+
+            word = index >>> WORD_SHIFT;
+            mask = 1L << index;
+            page = pages.get(word >>> PAGE_SHIFT);
+
+            if (page == null)
+            {
+                if (!value)
+                {
+                    return false;
+                }
+                pages.compareAndSet(word >>> PAGE_SHIFT, null, new AtomicLongArray(WORDS_PER_PAGE));
+                page = pages.get(word >>> PAGE_SHIFT);
+            }
+
+            do
+            {
+                current = page.get(word & (WORDS_PER_PAGE - 1));
+
+                if (((current & mask) != 0L) == value)
+                {
+                    return false;
+                }
+            }
+            while (!page.compareAndSet(word & (WORDS_PER_PAGE - 1), current, current ^ mask));
+
+            return true;
+        }
+
+        /**
+         * Gets one word of bits.
+         *
+         * @param word the index of the word
+         * @return the bits, zero if none in the word have been set
+         */
+        private long getWord(final int word)
+        {
+            final AtomicLongArray page;
+            page = pages.get(word >>> PAGE_SHIFT);
+
+            return page == null ? 0L : page.get(word & (WORDS_PER_PAGE - 1));
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package ca.bcit.comp2522.lab2;
+
+/**
+ * Applies damage and healing to whole arrays of health values at once, such as the health
+ * column of a {@link CreatureStore}, with the same clamping rules as {@link Creature#takeDamage(int)}
+ * and {@link Creature#heal(int)}.
+ * <p>
+ * Each loop is a straight pass over primitive arrays with the clamp written as
+ * {@link Math#max(int, int)} or {@link Math#min(int, int)} and no branches, which the JIT
+ * compiler turns into SIMD instructions that clamp several creatures per instruction. The
+ * amounts are validated once per call, or once per array before anything is changed, so a
+ * call either applies every change or none.
+ * </p>
+ * <p>
+ * {@link #aliveMask(int[], int, long[])} packs the result into one bit per creature, so later
+ * passes can skip dead creatures a word at a time.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public final class HealthVectors
+{
+    private static final int WORD_SHIFT = 6;
+    private static final int SIGN_SHIFT = Integer.SIZE - 1;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private HealthVectors()
+    {
+    }
+
+    /**
+     * Applies the same damage to the first {@code count} health values.
+     *
+     * @param health the health values
+     * @param count  the number of values to change
+     * @param damage the damage to apply, must be non-negative
+     * @throws DamageException           if the damage is negative
+     * @throws IndexOutOfBoundsException if the count is negative or larger than the array
+     */
+    public static void applyDamage(final int[] health,
+                                   final int count,
+                                   final int damage)
+    {
+        checkCount(health.length, count);
+        validateDamage(damage);
+
+        for (int i = 0; i < count; i++)
+        {
+            health[i] = Math.max(health[i] - damage, Creature.MIN_HEALTH);
+        }
+    }
+
+    /**
+     * Applies a separate damage to each of the first {@code count} health values.
+     *
+     * @param health the health values
+     * @param damage the damage for each value, each must be non-negative
+     * @param count  the number of values to change
+     * @throws DamageException           if any damage is negative, in which case nothing is changed
+     * @throws IndexOutOfBoundsException if the count is negative or larger than either array
+     */
+    public static void applyDamage(final int[] health,
+                                   final int[] damage,
+                                   final int count)
+    {
+        int lowest;
+
+        checkCount(health.length, count);
+        checkCount(damage.length, count);
+
+        lowest = 0;
+        for (int i = 0; i < count; i++)
+        {
+            lowest = Math.min(lowest, damage[i]);
+        }
+        validateDamage(lowest);
+
+        for (int i = 0; i < count; i++)
+        {
+            health[i] = Math.max(health[i] - damage[i], Creature.MIN_HEALTH);
+        }
+    }
+
+    /**
+     * Applies the same healing to the first {@code count} health values.
+     *
+     * @param health     the health values
+     * @param count      the number of values to change
+     * @param healAmount the healing to apply, must be at least {@link Creature#MIN_HEAL_AMOUNT}
+     * @throws HealingException          if the healing is too small
+     * @throws IndexOutOfBoundsException if the count is negative or larger than the array
+     */
+    public static void applyHealing(final int[] health,
+                                    final int count,
+                                    final int healAmount)
+    {
+        checkCount(health.length, count);
+        validateHealing(healAmount);
+
+        for (int i = 0; i < count; i++)
+        {
+            // Same as min(health + amount, MAX_HEALTH) without overflowing for large amounts
+            health[i] = Math.min(health[i], Creature.MAX_HEALTH - healAmount) + healAmount;
+        }
+    }
+
+    /**
+     * Applies a separate healing to each of the first {@code count} health values.
+     *
+     * @param health      the health values
+     * @param healAmounts the healing for each value, each must be at least
+     *                    {@link Creature#MIN_HEAL_AMOUNT}
+     * @param count       the number of values to change
+     * @throws HealingException          if any healing is too small, in which case nothing is changed
+     * @throws IndexOutOfBoundsException if the count is negative or larger than either array
+     */
+    public static void applyHealing(final int[] health,
+                                    final int[] healAmounts,
+                                    final int count)
+    {
+        int lowest;
+
+        checkCount(health.length, count);
+        checkCount(healAmounts.length, count);
+
+        lowest = Creature.MIN_HEAL_AMOUNT;
+        for (int i = 0; i < count; i++)
+        {
+            lowest = Math.min(lowest, healAmounts[i]);
+        }
+        validateHealing(lowest);
+
+        for (int i = 0; i < count; i++)
+        {
+            health[i] = Math.min(health[i], Creature.MAX_HEALTH - healAmounts[i]) + healAmounts[i];
+        }
+    }
+
+    /**
+     * Records which of the first {@code count} health values belong to living creatures, one bit
+     * per value, with value {@code i} in bit {@code i % 64} of word {@code i / 64}. Bits past the
+     * count in the last word are cleared.
+     *
+     * @param health the health values
+     * @param count  the number of values to check
+     * @param mask   the words to write the bits to, at least {@code (count + 63) / 64} long
+     * @return the number of living creatures
+     * @throws IndexOutOfBoundsException if the count is negative or larger than the array, or the
+     *                                   mask is too short
+     */
+    public static int aliveMask(final int[] health,
+                                final int count,
+                                final long[] mask)
+    {
+        final int words;
+        int       alive;
+
+        checkCount(health.length, count);
+
+        words = (count + Long.SIZE - 1) >>> WORD_SHIFT;
+        checkCount(mask.length, words);
+
+        alive = 0;
+        for (int word = 0; word < words; word++)
+        {
+            final int start;
+            final int end;
+            long      bits;
+
+            start = word << WORD_SHIFT;
+            end   = Math.min(start + Long.SIZE, count);
+            bits  = 0L;
+
+            for (int i = start; i < end; i++)
+            {
+                // The sign bit of MIN_HEALTH - health is set exactly when health > MIN_HEALTH
+                bits |= (long) ((Creature.MIN_HEALTH - health[i]) >>> SIGN_SHIFT) << i;
+            }
+
+            mask[word] = bits;
+            alive     += Long.bitCount(bits);
+        }
+        return alive;
+    }
+
+    /**
+     * Checks that the first {@code count} elements of an array exist.
+     *
+     * @param length the length of the array
+     * @param count  the number of elements
+     * @throws IndexOutOfBoundsException if the count is negative or larger than the array
+     */
+    private static void checkCount(final int length,
+                                   final int count)
+    {
+        if (count < 0 || count > length)
+        {
+            throw new IndexOutOfBoundsException("Count " + count + " is not between 0 and " + length);
+        }
+    }
+
+    /**
+     * Validates an amount of damage.
+     *
+     * @param damage the damage
+     * @throws DamageException if the damage is negative
+     */
+    private static void validateDamage(final int damage)
+    {
+        if (damage < Creature.MIN_DAMAGE)
+        {
+            throw new DamageException("Damage must not be less than " + Creature.MIN_DAMAGE);
+        }
+    }
+
+    /**
+     * Validates an amount of healing.
+     *
+     * @param healAmount the healing
+     * @throws HealingException if the healing is less than {@link Creature#MIN_HEAL_AMOUNT}
+     */
+    private static void validateHealing(final int healAmount)
+    {
+        if (healAmount < Creature.MIN_HEAL_AMOUNT)
+        {
+            throw new HealingException("Healing must not be less than " + Creature.MIN_HEAL_AMOUNT);
+        }
+    }
+}
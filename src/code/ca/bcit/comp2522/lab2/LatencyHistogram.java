@@ -0,0 +1,186 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets whose width grows with the value, in the style of an HDR histogram.
+ * <p>
+ * Values below {@value #SUB_BUCKETS} nanoseconds each get their own bucket. Above that, every
+ * power of two is split into {@value #SUB_BUCKETS} equal buckets, so any recorded value is known
+ * to within about six percent while the whole range up to {@code 2^41} nanoseconds (about 36
+ * minutes) fits in a few hundred counters. Larger values are counted in the last bucket.
+ * </p>
+ * <p>
+ * Recording is a single atomic increment and never allocates, so any number of threads may
+ * record at once.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class LatencyHistogram
+{
+    private static final int    SUB_BUCKET_BITS = 4;
+    private static final int    SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+    private static final int    MAX_MAGNITUDE   = 40;
+    private static final int    BUCKET_COUNT    = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final long   MAX_VALUE       = (1L << MAX_MAGNITUDE + 1) - 1;
+    private static final int    HIGHEST_BIT     = Long.SIZE - 1;
+    private static final double PERCENT         = 100.0;
+
+    private final AtomicLongArray buckets;
+
+    /**
+     * Constructs an empty {@code LatencyHistogram}.
+     */
+    public LatencyHistogram()
+    {
+        buckets = new AtomicLongArray(BUCKET_COUNT);
+    }
+
+    /**
+     * Counts one latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are counted as zero
+     */
+    public void record(final long nanos)
+    {
+        buckets.incrementAndGet(bucketOf(Math.min(Math.max(nanos, 0L), MAX_VALUE)));
+    }
+
+    /**
+     * Copies the current bucket counts, for computing several statistics from one consistent view.
+     *
+     * @return the count in each bucket
+     */
+    public long[] snapshot()
+    {
+        final long[] counts;
+        counts = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Clears every bucket.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            buckets.set(i, 0L);
+        }
+    }
+
+    /**
+     * Gets the total number of latencies counted.
+     *
+     * @return the count
+     */
+    public long getCount()
+    {
+        return countOf(snapshot());
+    }
+
+    /**
+     * Gets the latency at a percentile.
+     *
+     * @param percentile the percentile, between zero and one hundred
+     * @return the highest latency in the bucket holding the percentile, or zero if nothing was counted
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    public long getPercentile(final double percentile)
+    {
+        return percentileOf(snapshot(), percentile);
+    }
+
+    /**
+     * Sums the counts of a snapshot.
+     *
+     * @param counts a snapshot from {@link #snapshot()}
+     * @return the total count
+     */
+    static long countOf(final long[] counts)
+    {
+        long total;
+        total = 0L;
+
+        for (final long count : counts)
+        {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Finds the latency at a percentile of a snapshot.
+     *
+     * @param counts     a snapshot from {@link #snapshot()}
+     * @param percentile the percentile, between zero and one hundred
+     * @return the highest latency in the bucket holding the percentile, or zero if nothing was counted
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    static long percentileOf(final long[] counts,
+                             final double percentile)
+    {
+        final long total;
+        final long rank;
+        long       seen;
+
+        if (!(percentile >= 0.0 && percentile <= PERCENT))
+        {
+            throw new IllegalArgumentException("Percentile must be between 0 and " + PERCENT);
+        }
+
+        total = countOf(counts);
+        if (total == 0L)
+        {
+            return 0L;
+        }
+
+        rank = Math.max((long) Math.ceil(percentile / PERCENT * total), 1L);
+        seen = 0L;
+
+        for (int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return highestValueIn(i);
+            }
+        }
+        return highestValueIn(counts.length - 1);
+    }
+
+    /**
+     * Finds the bucket that counts a value.
+     *
+     * @param value the value, between zero and {@link #MAX_VALUE}
+     * @return the bucket index
+     */
+    private static int bucketOf(final long value)
+    {
+        final int shift;
+        shift = Math.max(HIGHEST_BIT - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS, 0);
+
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Finds the highest value counted by a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the highest value the bucket counts
+     */
+    private static long highestValueIn(final int bucket)
+    {
+        final int shift;
+        shift = Math.max(bucket / SUB_BUCKETS - 1, 0);
+
+        return ((long) (bucket - shift * SUB_BUCKETS) + 1 << shift) - 1;
+    }
+}
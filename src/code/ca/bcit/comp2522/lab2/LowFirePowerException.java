@@ -23,4 +23,21 @@ public class LowFirePowerException extends Exception
         super(message);
     }
 
+    /**
+     * Constructs a new {@code LowFirePowerException} with the specified detail message,
+     * optionally skipping the capture of a stack trace.
+     * <p>
+     * Filling in a stack trace is the most expensive part of throwing. Callers that throw this
+     * exception routinely and only care about the message can pass {@code false} to avoid it.
+     * </p>
+     *
+     * @param message            the detail message explaining the cause of the exception
+     * @param writableStackTrace {@code false} to create the exception without a stack trace
+     */
+    public LowFirePowerException(final String message,
+                                 final boolean writableStackTrace)
+    {
+        super(message, null, false, writableStackTrace);
+    }
+
 }
@@ -1,5 +1,9 @@
 package ca.bcit.comp2522.lab2;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
 /**
  * Represents an orc, a type of {@link Creature} that builds and consumes rage
  * in combat. Rage influences the orc's ability to deal damage, including a
@@ -8,21 +12,38 @@ package ca.bcit.comp2522.lab2;
  * An {@code Orc} can accumulate rage through combat, unleash a berserk attack
  * on other creatures, and display its details including rage level.
  * </p>
+ * <p>
+ * Rage is updated with compare-and-set, so an orc may be used from several threads.
+ * </p>
  *
  * @author Ryan Fiset, Larry Lin
  * @version 1.0
  */
-public class Orc extends Creature
+public final class Orc extends Creature
 {
-    private static final int MIN_RAGE         = 0;
-    private static final int MAX_RAGE         = 30;
-    private static final int RAGE_INCREASE    = 5;
-    private static final int RAGE_THRESHOLD   = 20;
-    private static final int MIN_BERSERK_RAGE = 5;
-    private static final int NORMAL_DAMAGE    = 15;
-    private static final int DOUBLE_DAMAGE    = 30;
+    static final int MIN_RAGE         = 0;
+    static final int MAX_RAGE         = 30;
+    static final int RAGE_INCREASE    = 5;
+    static final int RAGE_THRESHOLD   = 20;
+    static final int MIN_BERSERK_RAGE = 5;
+    static final int NORMAL_DAMAGE    = 15;
+    static final int DOUBLE_DAMAGE    = 30;
 
-    private int rage;
+    private static final VarHandle RAGE;
+
+    private volatile int rage;
+
+    static
+    {
+        try
+        {
+            RAGE = MethodHandles.lookup().findVarHandle(Orc.class, "rage", int.class);
+        }
+        catch (final ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * Constructs a new {@code Orc} with the given attributes.
@@ -42,7 +63,7 @@ public class Orc extends Creature
                final int health,
                final int rage)
     {
-        super(name, dateOfBirth, health);
+        super(name, dateOfBirth, health, CreatureKind.ORC);
 
         validateRage(rage);
         this.rage = rage;
@@ -55,26 +76,29 @@ public class Orc extends Creature
      * @throws IllegalArgumentException if {@code rage} is less than {@value #MIN_RAGE}
      *                                  or greater than {@value #MAX_RAGE}
      */
-    private static void validateRage(final int rage)
+    static void validateRage(final int rage)
     {
         if (rage < MIN_RAGE || rage > MAX_RAGE)
         {
+            CombatMetrics.recordValidationFailure();
             throw new IllegalArgumentException("Rage must be between " + MIN_RAGE + " and " + MAX_RAGE);
         }
     }
 
 
     /**
-     * Prints the details of the orc to standard output.
+     * Appends the details of the orc to a buffer.
      * <p>
      * Details include all creature information plus rage.
      * </p>
+     *
+     * @param details the buffer to append to
      */
     @Override
-    public void getDetails()
+    protected void appendDetails(final StringBuilder details)
     {
-        super.getDetails();
-        System.out.println("Rage: " + rage);
+        super.appendDetails(details);
+        details.append("Rage: ").append(rage).append(System.lineSeparator());
     }
 
     /**
@@ -87,6 +111,41 @@ public class Orc extends Creature
         return rage;
     }
 
+    /**
+     * Gets the rage of the orc.
+     *
+     * @return the orc's rage
+     */
+    @Override
+    public int getResource()
+    {
+        return getRage();
+    }
+
+    /**
+     * Performs a berserk attack on a target.
+     *
+     * @param target the creature to attack, must not be null
+     * @return the outcome of {@link #tryBerserk(Creature)}
+     */
+    @Override
+    public AttackOutcome attack(final Creature target)
+    {
+        return tryBerserk(target);
+    }
+
+    /**
+     * Performs a berserk attack on a group of targets at once.
+     *
+     * @param targets the creatures to attack, must not be null or contain null
+     * @return the outcome of {@link #tryBerserk(Collection)}
+     */
+    @Override
+    public AttackOutcome attack(final Collection<? extends Creature> targets)
+    {
+        return tryBerserk(targets);
+    }
+
     /**
      * Performs a berserk attack on a target creature.
      * <p>
@@ -102,28 +161,156 @@ public class Orc extends Creature
      */
     public void berserk(final Creature target)
     {
-        if (rage < MIN_BERSERK_RAGE)
+        if (tryBerserk(target) == AttackOutcome.INSUFFICIENT_RESOURCE)
         {
-            throw new LowRageException("Insufficient rage for berserk");
+            throw new LowRageException("Insufficient rage for berserk", FILL_STACK_TRACES);
         }
+    }
 
-        rage += RAGE_INCREASE;
-        System.out.println(getName() + " add rage");
+    /**
+     * Performs a berserk attack on a target creature if the orc has enough rage,
+     * reporting a lack of rage as an outcome instead of an exception.
+     * <p>
+     * Follows the same rules as {@link #berserk(Creature)}.
+     * </p>
+     *
+     * @param target the creature to attack, must not be null
+     * @return {@link AttackOutcome#SUCCESS} if the attack was made, or
+     *         {@link AttackOutcome#INSUFFICIENT_RESOURCE} if the orc's rage was too low
+     */
+    public AttackOutcome tryBerserk(final Creature target)
+    {
+        final long    start;
+        final int     current;
+        final int     updated;
+        final boolean killed;
 
-        if (rage > MAX_RAGE)
+        start   = CombatMetrics.startTimer();
+        current = buildRage();
+
+        if (current < MIN_BERSERK_RAGE)
         {
-            rage = MAX_RAGE;
+            CombatMetrics.recordFailedAttack(CombatEngine.ACTION_BERSERK);
+            getCombatEventListener().onAttackFailed(this, CombatEngine.ACTION_BERSERK, target, current);
+            return AttackOutcome.INSUFFICIENT_RESOURCE;
         }
 
+        updated = Math.min(current + RAGE_INCREASE, MAX_RAGE);
+
         int damage = NORMAL_DAMAGE;
-        if (rage > RAGE_THRESHOLD)
+        if (updated > RAGE_THRESHOLD)
         {
             damage = DOUBLE_DAMAGE;
-            System.out.println(getName() + " goes berserk");
         }
 
-        target.takeDamage(damage);
-        System.out.println(getName() + " deals " + damage + " damage to " + target.getName());
+        killed = target.dealDamage(damage);
+        getCombatEventListener().onAttack(this, CombatEngine.ACTION_BERSERK, target, damage, updated, killed);
+        CombatMetrics.recordAttack(CombatEngine.ACTION_BERSERK, start, killed);
+        return AttackOutcome.SUCCESS;
     }
 
+    /**
+     * Performs a berserk attack on a group of creatures at once. Rage builds once for the whole
+     * attack, and every target takes the damage that rage level earns.
+     *
+     * @param targets the creatures to attack, must not be null or contain null
+     * @throws LowRageException if the orc's rage is below {@link #MIN_BERSERK_RAGE}
+     */
+    public void berserk(final Collection<? extends Creature> targets) throws LowRageException
+    {
+        if (tryBerserk(targets) == AttackOutcome.INSUFFICIENT_RESOURCE)
+        {
+            throw new LowRageException("Insufficient rage for berserk", FILL_STACK_TRACES);
+        }
+    }
+
+    /**
+     * Performs a berserk attack on a group of creatures at once if the orc has enough rage,
+     * reporting a lack of rage as an outcome instead of an exception.
+     *
+     * @param targets the creatures to attack, must not be null or contain null
+     * @return {@link AttackOutcome#SUCCESS} if the attack was made, or
+     *         {@link AttackOutcome#INSUFFICIENT_RESOURCE} if the orc's rage was too low
+     */
+    public AttackOutcome tryBerserk(final Collection<? extends Creature> targets)
+    {
+        final long start;
+        final int  current;
+        final int  updated;
+        final int  damage;
+
+        start   = CombatMetrics.startTimer();
+        current = buildRage();
+
+        if (current < MIN_BERSERK_RAGE)
+        {
+            CombatMetrics.recordFailedAttack(CombatEngine.ACTION_BERSERK);
+            getCombatEventListener().onAttackFailed(this, CombatEngine.ACTION_BERSERK, null, current);
+            return AttackOutcome.INSUFFICIENT_RESOURCE;
+        }
+
+        updated = Math.min(current + RAGE_INCREASE, MAX_RAGE);
+
+        damage = updated > RAGE_THRESHOLD ? DOUBLE_DAMAGE : NORMAL_DAMAGE;
+
+        strikeAll(CombatEngine.ACTION_BERSERK, targets, damage, updated);
+        CombatMetrics.recordAttack(CombatEngine.ACTION_BERSERK, start, false);
+        return AttackOutcome.SUCCESS;
+    }
+
+    /**
+     * Builds the orc's rage for a berserk attack with compare-and-set, unless it is below
+     * {@link #MIN_BERSERK_RAGE}. If a journal is attached, the change is made and recorded while
+     * holding the orc's own lock, so its records are in the order its changes were made.
+     *
+     * @return the rage before the change, below {@link #MIN_BERSERK_RAGE} if nothing was changed
+     */
+    private int buildRage()
+    {
+        final CombatJournal attached;
+        attached = journal;
+
+        if (attached == null)
+        {
+            return compareAndSetRage();
+        }
+
+        synchronized (this)
+        {
+            final int previous;
+            final int updated;
+
+            previous = compareAndSetRage();
+            updated  = Math.min(previous + RAGE_INCREASE, MAX_RAGE);
+
+            if (previous >= MIN_BERSERK_RAGE && updated != previous)
+            {
+                attached.record(CombatJournal.OP_RESOURCE, journalIndex, previous, updated);
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Builds the orc's rage with compare-and-set, unless it is below {@link #MIN_BERSERK_RAGE},
+     * retrying until no other change intervenes.
+     *
+     * @return the rage before the change, below {@link #MIN_BERSERK_RAGE} if nothing was changed
+     */
+    private int compareAndSetRage()
+    {
+        int current;
+
+        do
+        {
+            current = rage;
+            if (current < MIN_BERSERK_RAGE)
+            {
+                return current;
+            }
+        }
+        while (!RAGE.compareAndSet(this, current, Math.min(current + RAGE_INCREASE, MAX_RAGE)));
+
+        return current;
+    }
 }
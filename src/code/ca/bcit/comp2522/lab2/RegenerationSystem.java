@@ -0,0 +1,188 @@
+package ca.bcit.comp2522.lab2;
+
+/**
+ * Regenerates the resources of a whole {@link CreatureStore} once per tick: dragons regain fire
+ * power, elves regain mana, and orcs' rage cools down.
+ * <p>
+ * Each kind has a resting value its resource moves towards: full fire power, full mana, and
+ * no rage. A tick moves every living creature one step towards its resting value, clamped to
+ * its kind's limits, in a single pass over the store's arrays. The rules are kept in small
+ * tables indexed by kind code, so the pass has no per-kind branches and makes no method calls.
+ * </p>
+ * <p>
+ * Most creatures are at rest most of the time, so the pass does not visit them. The store keeps
+ * one bit per creature that may need regenerating, set by every change that spends or builds a
+ * resource or revives a creature, and the tick clears the bit of each creature it finds at rest
+ * or dead. A tick therefore costs one word read per 64 creatures plus work for the creatures
+ * actually regenerating, instead of a step for every creature.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class RegenerationSystem
+{
+    /**
+     * The fire power a dragon regains per tick unless configured otherwise.
+     */
+    public static final int DEFAULT_FIRE_POWER_REGEN = 2;
+
+    /**
+     * The mana an elf regains per tick unless configured otherwise.
+     */
+    public static final int DEFAULT_MANA_REGEN = 3;
+
+    /**
+     * The rage an orc loses per tick unless configured otherwise.
+     */
+    public static final int DEFAULT_RAGE_DECAY = 1;
+
+    private static final int WORD_SHIFT = 6;
+    private static final int KIND_COUNT = CreatureKind.values().length;
+
+    private final int[] steps;
+    private final int[] minimums;
+    private final int[] maximums;
+    private final int[] resting;
+
+    /**
+     * Constructs a {@code RegenerationSystem} with the default rates.
+     */
+    public RegenerationSystem()
+    {
+        this(DEFAULT_FIRE_POWER_REGEN, DEFAULT_MANA_REGEN, DEFAULT_RAGE_DECAY);
+    }
+
+    /**
+     * Constructs a {@code RegenerationSystem} with the given rates.
+     *
+     * @param firePowerRegen the fire power a dragon regains per tick, between zero and
+     *                       {@link Dragon#MAX_FIRE_POWER}
+     * @param manaRegen      the mana an elf regains per tick, between zero and {@link Elf#MAX_MANA}
+     * @param rageDecay      the rage an orc loses per tick, between zero and {@link Orc#MAX_RAGE}
+     * @throws IllegalArgumentException if any rate is out of range
+     */
+    public RegenerationSystem(final int firePowerRegen,
+                              final int manaRegen,
+                              final int rageDecay)
+    {
+        validateRate("Fire power regeneration", firePowerRegen, Dragon.MAX_FIRE_POWER);
+        validateRate("Mana regeneration", manaRegen, Elf.MAX_MANA);
+        validateRate("Rage decay", rageDecay, Orc.MAX_RAGE);
+
+        steps    = new int[KIND_COUNT];
+        minimums = new int[KIND_COUNT];
+        maximums = new int[KIND_COUNT];
+        resting  = new int[KIND_COUNT];
+
+        steps[CreatureKind.DRAGON_CODE]    = firePowerRegen;
+        minimums[CreatureKind.DRAGON_CODE] = Dragon.MIN_FIRE_POWER;
+        maximums[CreatureKind.DRAGON_CODE] = Dragon.MAX_FIRE_POWER;
+        resting[CreatureKind.DRAGON_CODE]  = Dragon.MAX_FIRE_POWER;
+
+        steps[CreatureKind.ELF_CODE]    = manaRegen;
+        minimums[CreatureKind.ELF_CODE] = Elf.MIN_MANA;
+        maximums[CreatureKind.ELF_CODE] = Elf.MAX_MANA;
+        resting[CreatureKind.ELF_CODE]  = Elf.MAX_MANA;
+
+        steps[CreatureKind.ORC_CODE]    = -rageDecay;
+        minimums[CreatureKind.ORC_CODE] = Orc.MIN_RAGE;
+        maximums[CreatureKind.ORC_CODE] = Orc.MAX_RAGE;
+        resting[CreatureKind.ORC_CODE]  = Orc.MIN_RAGE;
+    }
+
+    /**
+     * Moves the resource of every living creature in a store one step towards its resting value.
+     * Each change is recorded in the store's journal, if it has one.
+     *
+     * @param store the store to regenerate, must not be null
+     * @return the number of creatures whose resource changed
+     */
+    public int tick(final CreatureStore store)
+    {
+        final byte[]        kinds;
+        final int[]         health;
+        final int[]         resources;
+        final long[]        regenerating;
+        final int           words;
+        final CombatJournal journal;
+        int                 changed;
+
+        kinds        = store.kinds;
+        health       = store.health;
+        resources    = store.resources;
+        regenerating = store.regenerating;
+        words        = (store.size + Long.SIZE - 1) >>> WORD_SHIFT;
+        journal      = store.journal;
+        changed      = 0;
+
+        for (int w = 0; w < words; w++)
+        {
+            long bits;
+            long remaining;
+
+            bits      = regenerating[w];
+            remaining = bits;
+
+            while (remaining != 0L)
+            {
+                final int index;
+                final int kind;
+
+                index     = w << WORD_SHIFT | Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                kind      = kinds[index];
+
+                if (health[index] <= Creature.MIN_HEALTH)
+                {
+                    bits &= ~(1L << index);
+                }
+                else
+                {
+                    final int resource;
+                    final int updated;
+
+                    resource = resources[index];
+                    updated  = Math.max(Math.min(resource + steps[kind], maximums[kind]), minimums[kind]);
+
+                    if (updated != resource)
+                    {
+                        resources[index] = updated;
+                        changed++;
+
+                        if (journal != null)
+                        {
+                            journal.record(CombatJournal.OP_RESOURCE, index, resource, updated);
+                        }
+                    }
+
+                    if (updated == resting[kind])
+                    {
+                        bits &= ~(1L << index);
+                    }
+                }
+            }
+
+            regenerating[w] = bits;
+        }
+        return changed;
+    }
+
+    /**
+     * Validates a regeneration or decay rate.
+     *
+     * @param description what the rate is, for the error message
+     * @param rate        the rate
+     * @param maximum     the largest allowed rate
+     * @throws IllegalArgumentException if the rate is negative or above the maximum
+     */
+    private static void validateRate(final String description,
+                                     final int rate,
+                                     final int maximum)
+    {
+        if (rate < 0 || rate > maximum)
+        {
+            throw new IllegalArgumentException(description + " must be between 0 and " + maximum);
+        }
+    }
+}
@@ -0,0 +1,945 @@
+package ca.bcit.comp2522.lab2;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads creature rosters from CSV or JSON-lines text into a {@link CreatureStore}.
+ * <p>
+ * Each row describes one creature by kind ({@code dragon}, {@code elf}, or {@code orc}), name,
+ * date of birth as {@code YYYY-MM-DD}, health, and fire power, mana, or rage:
+ * </p>
+ * <pre>
+ * kind,name,birthDate,health,resource
+ * dragon,Smaug,1974-01-15,95,80
+ *
+ * {"kind":"elf","name":"Legolas","birthDate":"1980-05-06","health":100,"resource":45}
+ * </pre>
+ * <p>
+ * A CSV roster may start with the header line shown above, and names may be quoted. A JSON-lines
+ * roster may give the resource under its own name ({@code firePower}, {@code mana}, or
+ * {@code rage}) instead of {@code resource}. Blank lines are ignored.
+ * </p>
+ * <p>
+ * The input is read in chunks of lines. Each chunk is parsed and validated on the pool with the
+ * same rules as the {@link Dragon}, {@link Elf}, and {@link Orc} constructors, scanning each line
+ * in place instead of splitting it. Finished chunks are added to the store in input order on
+ * the calling thread, so the store's order matches the roster's. Rows that fail to parse or
+ * validate are passed to the {@link ErrorHandler} with their line number and skipped.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class RosterLoader
+{
+    private static final int CHUNK_LINES      = 4096;
+    private static final int CHUNKS_PER_CORE  = 2;
+    private static final int DATE_LENGTH      = 10;
+    private static final int MONTH_POSITION   = 5;
+    private static final int DAY_POSITION     = 8;
+    private static final int RADIX            = 10;
+    private static final int HEX_RADIX        = 16;
+    private static final int HEX_DIGITS       = 4;
+    private static final int NOT_A_DIGIT      = -1;
+    private static final int FIRST_LINE       = 1;
+    private static final int NOT_SET          = Integer.MIN_VALUE;
+
+    private static final byte NO_KIND = -1;
+
+    private static final char   QUOTE      = '"';
+    private static final String CSV_HEADER = "kind";
+    private static final String DRAGON     = "dragon";
+    private static final String ELF        = "elf";
+    private static final String ORC        = "orc";
+
+    private final Format       format;
+    private final ErrorHandler errors;
+    private final ForkJoinPool pool;
+
+    /**
+     * The text formats a roster can be written in.
+     */
+    public enum Format
+    {
+        /**
+         * One comma-separated row per line: kind, name, date of birth, health, and resource.
+         */
+        CSV,
+
+        /**
+         * One JSON object per line with {@code kind}, {@code name}, {@code birthDate},
+         * {@code health}, and {@code resource} members.
+         */
+        JSON_LINES
+    }
+
+    /**
+     * Receives the rows of a roster that could not be loaded.
+     */
+    @FunctionalInterface
+    public interface ErrorHandler
+    {
+        /**
+         * Called once for every row that is skipped, in input order.
+         *
+         * @param lineNumber the line number of the row, starting at one
+         * @param line       the text of the row
+         * @param reason     why the row was rejected
+         */
+        void onBadRow(long lineNumber, String line, String reason);
+    }
+
+    /**
+     * Constructs a new {@code RosterLoader} that parses on the common fork/join pool.
+     *
+     * @param format the format of the rosters to load, must not be null
+     * @param errors the handler for rows that cannot be loaded, must not be null
+     * @throws IllegalArgumentException if the format or handler is null
+     */
+    public RosterLoader(final Format format,
+                        final ErrorHandler errors)
+    {
+        this(format, errors, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new {@code RosterLoader}.
+     *
+     * @param format the format of the rosters to load, must not be null
+     * @param errors the handler for rows that cannot be loaded, must not be null
+     * @param pool   the pool to parse chunks on, must not be null
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public RosterLoader(final Format format,
+                        final ErrorHandler errors,
+                        final ForkJoinPool pool)
+    {
+        if (format == null || errors == null || pool == null)
+        {
+            throw new IllegalArgumentException("Format, error handler, and pool cannot be null");
+        }
+
+        this.format = format;
+        this.errors = errors;
+        this.pool   = pool;
+    }
+
+    /**
+     * Loads a UTF-8 roster file into a store.
+     *
+     * @param path  the roster file
+     * @param store the store to add the creatures to, must not be null
+     * @return the number of creatures added
+     * @throws IOException if the file cannot be read
+     */
+    public long load(final Path path,
+                     final CreatureStore store) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+        {
+            return load(reader, store);
+        }
+    }
+
+    /**
+     * Loads a roster from a reader into a store. The reader is not closed.
+     *
+     * @param in    the roster text
+     * @param store the store to add the creatures to, must not be null
+     * @return the number of creatures added
+     * @throws IOException if the roster cannot be read
+     */
+    public long load(final Reader in,
+                     final CreatureStore store) throws IOException
+    {
+        final BufferedReader             reader;
+        final Deque<ForkJoinTask<Chunk>> inFlight;
+        final int                        maxInFlight;
+        long                             lineNumber;
+        long                             loaded;
+
+        reader      = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        inFlight    = new ArrayDeque<>();
+        maxInFlight = pool.getParallelism() * CHUNKS_PER_CORE;
+        lineNumber  = FIRST_LINE;
+        loaded      = 0L;
+
+        while (true)
+        {
+            final Chunk chunk;
+            chunk = new Chunk(lineNumber);
+
+            String line;
+            while (chunk.lineCount < CHUNK_LINES &&
+                   (line = reader.readLine()) != null)
+            {
+                chunk.lines[chunk.lineCount] = line;
+                chunk.lineCount++;
+            }
+
+            if (chunk.lineCount == 0)
+            {
+                break;
+            }
+            lineNumber += chunk.lineCount;
+
+            if (inFlight.size() == maxInFlight)
+            {
+                loaded += merge(inFlight.removeFirst().join(), store);
+            }
+            inFlight.addLast(pool.submit(() -> parse(chunk)));
+        }
+
+        while (!inFlight.isEmpty())
+        {
+            loaded += merge(inFlight.removeFirst().join(), store);
+        }
+        return loaded;
+    }
+
+    /**
+     * Reports a parsed chunk's bad rows and adds its good rows to the store, both in input order.
+     *
+     * @param chunk the parsed chunk
+     * @param store the store to add to
+     * @return the number of creatures added
+     */
+    private int merge(final Chunk chunk,
+                      final CreatureStore store)
+    {
+        for (int i = 0; i < chunk.errorCount; i++)
+        {
+            final int line;
+            line = chunk.errorLines[i];
+
+            errors.onBadRow(chunk.firstLineNumber + line, chunk.lines[line], chunk.errorReasons[i]);
+        }
+
+        for (int i = 0; i < chunk.rowCount; i++)
+        {
+            store.append(chunk.kinds[i], chunk.names[i], chunk.birthDates[i], chunk.health[i], chunk.resources[i]);
+        }
+        return chunk.rowCount;
+    }
+
+    /**
+     * Parses and validates every line of a chunk.
+     *
+     * @param chunk the chunk to parse
+     * @return the same chunk, with its rows and errors filled in
+     */
+    private Chunk parse(final Chunk chunk)
+    {
+        final Cursor cursor;
+        cursor = new Cursor();
+
+        for (int i = 0; i < chunk.lineCount; i++)
+        {
+            final String line;
+            line = chunk.lines[i];
+
+            if (line.isBlank() ||
+                format == Format.CSV &&
+                chunk.firstLineNumber + i == FIRST_LINE &&
+                line.stripLeading().regionMatches(true, 0, CSV_HEADER, 0, CSV_HEADER.length()))
+            {
+                continue;
+            }
+
+            try
+            {
+                cursor.reset(line);
+                if (format == Format.CSV)
+                {
+                    cursor.parseCsv();
+                }
+                else
+                {
+                    cursor.parseJson();
+                }
+
+                Creature.validateName(cursor.name);
+                Creature.validateDate(cursor.dateOfBirth);
+                Creature.validateHealth(cursor.health);
+                CreatureStore.validateResource(cursor.kind, cursor.resource);
+
+                chunk.addRow(cursor);
+            }
+            catch (final IllegalArgumentException e)
+            {
+                chunk.addError(i, e.getMessage());
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * A block of consecutive roster lines, and once parsed, the rows and errors found in it.
+     */
+    private static final class Chunk
+    {
+        private final long     firstLineNumber;
+        private final String[] lines;
+        private final byte[]   kinds;
+        private final String[] names;
+        private final int[]    birthDates;
+        private final int[]    health;
+        private final int[]    resources;
+        private final int[]    errorLines;
+        private final String[] errorReasons;
+
+        private int lineCount;
+        private int rowCount;
+        private int errorCount;
+
+        /**
+         * Constructs an empty {@code Chunk}.
+         *
+         * @param firstLineNumber the line number of the chunk's first line
+         */
+        private Chunk(final long firstLineNumber)
+        {
+            this.firstLineNumber = firstLineNumber;
+
+            lines        = new String[CHUNK_LINES];
+            kinds        = new byte[CHUNK_LINES];
+            names        = new String[CHUNK_LINES];
+            birthDates   = new int[CHUNK_LINES];
+            health       = new int[CHUNK_LINES];
+            resources    = new int[CHUNK_LINES];
+            errorLines   = new int[CHUNK_LINES];
+            errorReasons = new String[CHUNK_LINES];
+            lineCount    = 0;
+            rowCount     = 0;
+            errorCount   = 0;
+        }
+
+        /**
+         * Records a valid row.
+         *
+         * @param row the cursor holding the row's fields
+         */
+        private void addRow(final Cursor row)
+        {
+            kinds[rowCount]      = row.kind;
+            names[rowCount]      = row.name;
+            birthDates[rowCount] = row.dateOfBirth.toPackedInt();
+            health[rowCount]     = row.health;
+            resources[rowCount]  = row.resource;
+            rowCount++;
+        }
+
+        /**
+         * Records a rejected row.
+         *
+         * @param line   the row's position in the chunk
+         * @param reason why the row was rejected
+         */
+        private void addError(final int line,
+                              final String reason)
+        {
+            errorLines[errorCount]   = line;
+            errorReasons[errorCount] = reason;
+            errorCount++;
+        }
+    }
+
+    /**
+     * Scans the fields of a single roster line in place.
+     * <p>
+     * A cursor is reused for every line of a chunk. Each parse method fills in the fields or
+     * throws {@link IllegalArgumentException} describing the first problem found.
+     * </p>
+     */
+    private static final class Cursor
+    {
+        private String line;
+        private int    position;
+        private byte   kind;
+        private String name;
+        private Date   dateOfBirth;
+        private int    health;
+        private int    resource;
+
+        /**
+         * Points the cursor at the start of a new line and clears its fields.
+         *
+         * @param line the line to scan
+         */
+        private void reset(final String line)
+        {
+            this.line   = line;
+            position    = 0;
+            kind        = NO_KIND;
+            name        = null;
+            dateOfBirth = null;
+            health      = NOT_SET;
+            resource    = NOT_SET;
+        }
+
+        /**
+         * Parses a CSV row of kind, name, date of birth, health, and resource.
+         */
+        private void parseCsv()
+        {
+            final int kindStart;
+
+            skipSpaces();
+            kindStart = position;
+            while (position < line.length() && line.charAt(position) != ',')
+            {
+                position++;
+            }
+            kind = kindOf(kindStart, trimmedEnd(kindStart, position));
+            expect(',');
+
+            skipSpaces();
+            if (position < line.length() && line.charAt(position) == QUOTE)
+            {
+                name = readQuoted(false);
+            }
+            else
+            {
+                final int nameStart;
+                nameStart = position;
+
+                while (position < line.length() && line.charAt(position) != ',')
+                {
+                    position++;
+                }
+                name = line.substring(nameStart, trimmedEnd(nameStart, position));
+            }
+            skipSpaces();
+            expect(',');
+
+            skipSpaces();
+            dateOfBirth = readDate();
+            skipSpaces();
+            expect(',');
+
+            skipSpaces();
+            health = readInt();
+            skipSpaces();
+            expect(',');
+
+            skipSpaces();
+            resource = readInt();
+            skipSpaces();
+
+            if (position != line.length())
+            {
+                throw new IllegalArgumentException("Unexpected text after the resource at column " + (position + 1));
+            }
+        }
+
+        /**
+         * Parses a JSON object holding the kind, name, date of birth, health, and resource.
+         */
+        private void parseJson()
+        {
+            skipSpaces();
+            expect('{');
+            skipSpaces();
+
+            if (position < line.length() && line.charAt(position) == '}')
+            {
+                throw new IllegalArgumentException("Row has no members");
+            }
+
+            while (true)
+            {
+                final int keyStart;
+                final int keyEnd;
+
+                skipSpaces();
+                expect(QUOTE);
+                keyStart = position;
+                while (position < line.length() && line.charAt(position) != QUOTE)
+                {
+                    position++;
+                }
+                keyEnd = position;
+                expect(QUOTE);
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+
+                if (keyIs(keyStart, keyEnd, "kind"))
+                {
+                    final int kindStart;
+
+                    expect(QUOTE);
+                    kindStart = position;
+                    while (position < line.length() && line.charAt(position) != QUOTE)
+                    {
+                        position++;
+                    }
+                    kind = kindOf(kindStart, position);
+                    expect(QUOTE);
+                }
+                else if (keyIs(keyStart, keyEnd, "name"))
+                {
+                    name = readQuoted(true);
+                }
+                else if (keyIs(keyStart, keyEnd, "birthDate"))
+                {
+                    expect(QUOTE);
+                    dateOfBirth = readDate();
+                    expect(QUOTE);
+                }
+                else if (keyIs(keyStart, keyEnd, "health"))
+                {
+                    health = readInt();
+                }
+                else if (keyIs(keyStart, keyEnd, "resource") ||
+                         keyIs(keyStart, keyEnd, "firePower") ||
+                         keyIs(keyStart, keyEnd, "mana") ||
+                         keyIs(keyStart, keyEnd, "rage"))
+                {
+                    resource = readInt();
+                }
+                else
+                {
+                    throw new IllegalArgumentException("Unknown member \"" + line.substring(keyStart, keyEnd) + "\"");
+                }
+
+                skipSpaces();
+                if (position < line.length() && line.charAt(position) == ',')
+                {
+                    position++;
+                    continue;
+                }
+                expect('}');
+                break;
+            }
+
+            skipSpaces();
+            if (position != line.length())
+            {
+                throw new IllegalArgumentException("Unexpected text after the object at column " + (position + 1));
+            }
+
+            if (kind == NO_KIND || name == null || dateOfBirth == null || health == NOT_SET || resource == NOT_SET)
+            {
+                throw new IllegalArgumentException("Row must have kind, name, birthDate, health, and resource");
+            }
+        }
+
+        /**
+         * Reads a {@code YYYY-MM-DD} date at the cursor.
+         *
+         * @return the shared date
+         * @throws IllegalArgumentException if the text is not a valid date
+         */
+        private Date readDate()
+        {
+            final int start;
+
+            start = position;
+            if (start + DATE_LENGTH > line.length() ||
+                line.charAt(start + MONTH_POSITION - 1) != '-' ||
+                line.charAt(start + DAY_POSITION - 1) != '-')
+            {
+                throw new IllegalArgumentException("Date of birth must be written as YYYY-MM-DD at column " + (start + 1));
+            }
+
+            position = start + DATE_LENGTH;
+            return Date.of(digits(start, start + MONTH_POSITION - 1),
+                           digits(start + MONTH_POSITION, start + DAY_POSITION - 1),
+                           digits(start + DAY_POSITION, start + DATE_LENGTH));
+        }
+
+        /**
+         * Reads an optionally negative decimal integer at the cursor.
+         *
+         * @return the integer
+         * @throws IllegalArgumentException if there is no integer at the cursor or it is too large
+         */
+        private int readInt()
+        {
+            final boolean negative;
+            final int     start;
+
+            negative = position < line.length() && line.charAt(position) == '-';
+            if (negative)
+            {
+                position++;
+            }
+
+            start = position;
+            while (position < line.length() &&
+                   digitValue(line.charAt(position), RADIX) != NOT_A_DIGIT)
+            {
+                position++;
+            }
+
+            return negative ? -digits(start, position) : digits(start, position);
+        }
+
+        /**
+         * Converts a run of ASCII decimal digits to a number.
+         *
+         * @param start the index of the first digit
+         * @param end   the index after the last digit
+         * @return the number
+         * @throws IllegalArgumentException if the run is empty, holds a non-digit, or is too large
+         */
+        private int digits(final int start,
+                           final int end)
+        {
+            long value;
+
+            if (start == end)
+            {
+                throw new IllegalArgumentException("Expected a number at column " + (start + 1));
+            }
+
+            value = 0L;
+            for (int i = start; i < end; i++)
+            {
+                final int digit;
+                digit = digitValue(line.charAt(i), RADIX);
+
+                if (digit == NOT_A_DIGIT)
+                {
+                    throw new IllegalArgumentException("Expected a digit at column " + (i + 1));
+                }
+
+                value = value * RADIX + digit;
+                if (value > Integer.MAX_VALUE)
+                {
+                    throw new IllegalArgumentException("Number at column " + (start + 1) + " is too large");
+                }
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reads a double-quoted string at the cursor. In CSV a doubled quote stands for one quote;
+         * in JSON the escapes {@code \" \\ \/ \b \f \n \r \t} and {@code \}{@code uXXXX}
+         * are decoded.
+         *
+         * @param json whether to use JSON escaping instead of CSV escaping
+         * @return the unquoted string
+         * @throws IllegalArgumentException if the string is not closed or holds a bad JSON escape
+         */
+        private String readQuoted(final boolean json)
+        {
+            final int     start;
+            StringBuilder unescaped;
+
+            expect(QUOTE);
+            start     = position;
+            unescaped = null;
+
+            while (position < line.length())
+            {
+                final char c;
+                c = line.charAt(position);
+
+                if (json && c == '\\')
+                {
+                    if (unescaped == null)
+                    {
+                        unescaped = new StringBuilder().append(line, start, position);
+                    }
+                    readEscape(unescaped);
+                }
+                else if (!json && c == QUOTE && position + 1 < line.length() && line.charAt(position + 1) == QUOTE)
+                {
+                    if (unescaped == null)
+                    {
+                        unescaped = new StringBuilder().append(line, start, position);
+                    }
+                    unescaped.append(QUOTE);
+                    position += 2;
+                }
+                else if (c == QUOTE)
+                {
+                    final String text;
+                    text = unescaped == null ? line.substring(start, position) : unescaped.toString();
+
+                    position++;
+                    return text;
+                }
+                else
+                {
+                    if (unescaped != null)
+                    {
+                        unescaped.append(c);
+                    }
+                    position++;
+                }
+            }
+            throw new IllegalArgumentException("Name starting at column " + start + " is not closed");
+        }
+
+        /**
+         * Decodes the JSON escape whose backslash is at the cursor and moves past it. A
+         * {@code \}{@code u} escape of a high surrogate must be followed by one of a low surrogate.
+         *
+         * @param out the builder the decoded characters are appended to
+         * @throws IllegalArgumentException if the escape is unknown, unfinished, or an unpaired surrogate
+         */
+        private void readEscape(final StringBuilder out)
+        {
+            final int  column;
+            final char escaped;
+
+            column = position + 1;
+            if (position + 1 >= line.length())
+            {
+                throw new IllegalArgumentException("Escape at column " + column + " is not finished");
+            }
+
+            escaped  = line.charAt(position + 1);
+            position += 2;
+
+            switch (escaped)
+            {
+                case '"':
+                case '\\':
+                case '/':
+                    out.append(escaped);
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'u':
+                    readUnicodeEscape(out, column);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown escape \\" + escaped + " at column " + column);
+            }
+        }
+
+        /**
+         * Decodes the four hex digits of a {@code \}{@code u} escape at the cursor, and the low
+         * surrogate escape that must follow a high surrogate.
+         *
+         * @param out    the builder the decoded characters are appended to
+         * @param column the column of the escape's backslash, for error messages
+         * @throws IllegalArgumentException if the digits are not hex or a surrogate is unpaired
+         */
+        private void readUnicodeEscape(final StringBuilder out,
+                                       final int column)
+        {
+            final char unit;
+            unit = readHexUnit(column);
+
+            if (Character.isHighSurrogate(unit))
+            {
+                final char low;
+
+                if (!line.startsWith("\\u", position))
+                {
+                    throw new IllegalArgumentException("Unpaired surrogate escape at column " + column);
+                }
+
+                position += 2;
+                low = readHexUnit(column);
+                if (!Character.isLowSurrogate(low))
+                {
+                    throw new IllegalArgumentException("Unpaired surrogate escape at column " + column);
+                }
+                out.append(unit).append(low);
+            }
+            else if (Character.isLowSurrogate(unit))
+            {
+                throw new IllegalArgumentException("Unpaired surrogate escape at column " + column);
+            }
+            else
+            {
+                out.append(unit);
+            }
+        }
+
+        /**
+         * Reads four hex digits at the cursor as one UTF-16 code unit.
+         *
+         * @param column the column of the escape's backslash, for error messages
+         * @return the code unit
+         * @throws IllegalArgumentException if there are not four hex digits at the cursor
+         */
+        private char readHexUnit(final int column)
+        {
+            int unit;
+
+            if (position + HEX_DIGITS > line.length())
+            {
+                throw new IllegalArgumentException("Escape at column " + column + " needs " + HEX_DIGITS + " hex digits");
+            }
+
+            unit = 0;
+            for (int i = 0; i < HEX_DIGITS; i++)
+            {
+                final int digit;
+                digit = digitValue(line.charAt(position + i), HEX_RADIX);
+
+                if (digit == NOT_A_DIGIT)
+                {
+                    throw new IllegalArgumentException("Escape at column " + column + " needs " + HEX_DIGITS + " hex digits");
+                }
+                unit = unit * HEX_RADIX + digit;
+            }
+
+            position += HEX_DIGITS;
+            return (char) unit;
+        }
+
+        /**
+         * Matches a kind name against the known kinds, ignoring case.
+         *
+         * @param start the index of the kind's first character
+         * @param end   the index after the kind's last character
+         * @return the kind code
+         * @throws IllegalArgumentException if the kind is unknown
+         */
+        private byte kindOf(final int start,
+                            final int end)
+        {
+            if (keyIgnoringCase(start, end, DRAGON))
+            {
+                return CreatureKind.DRAGON_CODE;
+            }
+            if (keyIgnoringCase(start, end, ELF))
+            {
+                return CreatureKind.ELF_CODE;
+            }
+            if (keyIgnoringCase(start, end, ORC))
+            {
+                return CreatureKind.ORC_CODE;
+            }
+            throw new IllegalArgumentException("Unknown kind \"" + line.substring(start, end) + "\"");
+        }
+
+        /**
+         * Checks whether a span of the line is exactly a key.
+         *
+         * @param start the index of the span's first character
+         * @param end   the index after the span's last character
+         * @param key   the key to compare with
+         * @return {@code true} if the span equals the key
+         */
+        private boolean keyIs(final int start,
+                              final int end,
+                              final String key)
+        {
+            return end - start == key.length() && line.regionMatches(start, key, 0, key.length());
+        }
+
+        /**
+         * Checks whether a span of the line is a key, ignoring case.
+         *
+         * @param start the index of the span's first character
+         * @param end   the index after the span's last character
+         * @param key   the key to compare with
+         * @return {@code true} if the span equals the key, ignoring case
+         */
+        private boolean keyIgnoringCase(final int start,
+                                        final int end,
+                                        final String key)
+        {
+            return end - start == key.length() && line.regionMatches(true, start, key, 0, key.length());
+        }
+
+        /**
+         * Consumes the expected character at the cursor.
+         *
+         * @param expected the character that must come next
+         * @throws IllegalArgumentException if a different character or the end of the line is next
+         */
+        private void expect(final char expected)
+        {
+            if (position >= line.length() || line.charAt(position) != expected)
+            {
+                throw new IllegalArgumentException("Expected '" + expected + "' at column " + (position + 1));
+            }
+            position++;
+        }
+
+        /**
+         * Moves the cursor past any whitespace.
+         */
+        private void skipSpaces()
+        {
+            while (position < line.length() &&
+                   Character.isWhitespace(line.charAt(position)))
+            {
+                position++;
+            }
+        }
+
+        /**
+         * Finds the end of a span with trailing whitespace removed.
+         *
+         * @param start the index of the span's first character
+         * @param end   the index after the span's last character
+         * @return the index after the span's last non-whitespace character
+         */
+        private int trimmedEnd(final int start,
+                               final int end)
+        {
+            int trimmed;
+            trimmed = end;
+
+            while (trimmed > start &&
+                   Character.isWhitespace(line.charAt(trimmed - 1)))
+            {
+                trimmed--;
+            }
+            return trimmed;
+        }
+
+        /**
+         * Gets the value of an ASCII digit. Unlike {@link Character#digit(char, int)}, digits from
+         * other scripts, such as Arabic-Indic or full-width digits, are not accepted.
+         *
+         * @param c     the character
+         * @param radix ten for decimal digits, or sixteen to also accept {@code a-f} and {@code A-F}
+         * @return the digit's value, or {@code -1} if the character is not a digit
+         */
+        private static int digitValue(final char c,
+                                      final int radix)
+        {
+            if (c >= '0' && c <= '9')
+            {
+                return c - '0';
+            }
+
+            if (radix == HEX_RADIX)
+            {
+                if (c >= 'a' && c <= 'f')
+                {
+                    return c - 'a' + RADIX;
+                }
+                if (c >= 'A' && c <= 'F')
+                {
+                    return c - 'A' + RADIX;
+                }
+            }
+            return NOT_A_DIGIT;
+        }
+    }
+}
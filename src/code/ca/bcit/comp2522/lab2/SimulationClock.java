@@ -0,0 +1,264 @@
+package ca.bcit.comp2522.lab2;
+
+/**
+ * Supplies the current day of a simulation and answers age questions relative to it.
+ * <p>
+ * "Today" is held as an epoch day (see {@link Date#toEpochDay()}) and can be moved forward or
+ * set directly as simulated time passes, but never moved back. Ages are answered from a table that holds the age in
+ * whole years of every possible date of birth up to today. The table is rebuilt in one pass the
+ * first time an age is asked for after the day changes, so while the day stays the same every
+ * age is a single array lookup, including across a whole roster with
+ * {@link #ageYears(int[], int[])}.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class SimulationClock
+{
+    private static final int JANUARY  = 1;
+    private static final int DECEMBER = 12;
+    private static final int MIN_DAY  = 1;
+
+    private volatile int      todayEpochDay;
+    private volatile AgeTable ageTable;
+
+    /**
+     * Constructs a new {@code SimulationClock} starting on the given day.
+     *
+     * @param today the first day of the simulation, must not be null
+     * @throws IllegalArgumentException if today is null
+     */
+    public SimulationClock(final Date today)
+    {
+        validateToday(today);
+
+        todayEpochDay = today.toEpochDay();
+    }
+
+    /**
+     * Sets the current day of the simulation. Time only moves forward, so that every date of
+     * birth accepted so far stays on or before today.
+     *
+     * @param today the new current day, must not be null or before the current day
+     * @throws IllegalArgumentException if today is null or before the current day
+     */
+    public synchronized void setToday(final Date today)
+    {
+        final int epochDay;
+
+        validateToday(today);
+
+        epochDay = today.toEpochDay();
+        if (epochDay < todayEpochDay)
+        {
+            throw new IllegalArgumentException("Today cannot move back from " + getToday().getYYYYMMDD() +
+                                               " to " + today.getYYYYMMDD());
+        }
+
+        todayEpochDay = epochDay;
+    }
+
+    /**
+     * Moves the current day of the simulation forward.
+     *
+     * @param days the number of days to advance, must not be negative
+     * @throws IllegalArgumentException if days is negative or the new day is past the last valid date
+     */
+    public synchronized void advanceDays(final int days)
+    {
+        if (days < 0)
+        {
+            throw new IllegalArgumentException("Days to advance must not be negative");
+        }
+
+        setToday(Date.ofEpochDay(todayEpochDay + days));
+    }
+
+    /**
+     * Gets the current day of the simulation.
+     *
+     * @return the shared {@link Date} for today
+     */
+    public Date getToday()
+    {
+        return Date.ofEpochDay(todayEpochDay);
+    }
+
+    /**
+     * Gets the current day of the simulation as an epoch day.
+     *
+     * @return today's epoch day
+     */
+    public int getTodayEpochDay()
+    {
+        return todayEpochDay;
+    }
+
+    /**
+     * Computes the age in whole years of something born on the given date.
+     *
+     * @param dateOfBirth the date of birth, must not be null or after today
+     * @return the age in years
+     * @throws IllegalArgumentException if the date of birth is after today
+     */
+    public int ageYears(final Date dateOfBirth)
+    {
+        return ageYears(dateOfBirth.toEpochDay());
+    }
+
+    /**
+     * Computes the age in whole years of something born on the given epoch day.
+     *
+     * @param birthEpochDay the epoch day of birth, must not be after today
+     * @return the age in years
+     * @throws IllegalArgumentException if the epoch day of birth is after today
+     *                                  or before the earliest valid date
+     */
+    public int ageYears(final int birthEpochDay)
+    {
+        final short[] ages;
+        final int     index;
+
+        ages  = currentAgeTable().ages;
+        index = birthEpochDay - Date.MIN_EPOCH_DAY;
+
+        if (index < 0 || index >= ages.length)
+        {
+            throw new IllegalArgumentException("Date of birth must be between the earliest valid date and today");
+        }
+        return ages[index];
+    }
+
+    /**
+     * Computes the age in whole years of every entry in a roster of epoch days of birth.
+     *
+     * @param birthEpochDays the epoch days of birth, none after today
+     * @param ages           the array receiving each age, at least as long as {@code birthEpochDays}
+     * @throws IllegalArgumentException if {@code ages} is too short or any epoch day of birth
+     *                                  is after today or before the earliest valid date
+     */
+    public void ageYears(final int[] birthEpochDays,
+                         final int[] ages)
+    {
+        final short[] table;
+
+        if (ages.length < birthEpochDays.length)
+        {
+            throw new IllegalArgumentException("Ages must hold at least " + birthEpochDays.length + " entries");
+        }
+
+        table = currentAgeTable().ages;
+
+        for (int i = 0; i < birthEpochDays.length; i++)
+        {
+            final int index;
+            index = birthEpochDays[i] - Date.MIN_EPOCH_DAY;
+
+            if (index < 0 || index >= table.length)
+            {
+                throw new IllegalArgumentException("Date of birth at " + i +
+                                                   " must be between the earliest valid date and today");
+            }
+            ages[i] = table[index];
+        }
+    }
+
+    /**
+     * Validates a new current day.
+     *
+     * @param today the day
+     * @throws IllegalArgumentException if today is null
+     */
+    private static void validateToday(final Date today)
+    {
+        if (today == null)
+        {
+            throw new IllegalArgumentException("Today cannot be null");
+        }
+    }
+
+    /**
+     * Returns the age table for today, rebuilding it if the day has changed since it was built.
+     *
+     * @return the age table for today
+     */
+    private AgeTable currentAgeTable()
+    {
+        final int today;
+        AgeTable  table;
+
+        today = todayEpochDay;
+        table = ageTable;
+
+        if (table == null || table.todayEpochDay != today)
+        {
+            table    = new AgeTable(today);
+            ageTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * The age in whole years, on one particular day, of every date of birth from the earliest
+     * valid date up to that day.
+     */
+    private static final class AgeTable
+    {
+        private final int     todayEpochDay;
+        private final short[] ages;
+
+        /**
+         * Builds the table for the given day in a single pass over every date of birth.
+         *
+         * @param todayEpochDay the day the ages are relative to
+         */
+        private AgeTable(final int todayEpochDay)
+        {
+            final Date today;
+            final int  todayYear;
+            final int  todayMonth;
+            final int  todayDay;
+            int        year;
+            int        month;
+            int        day;
+
+            today      = Date.ofEpochDay(todayEpochDay);
+            todayYear  = today.getYear();
+            todayMonth = today.getMonth();
+            todayDay   = today.getDay();
+
+            this.todayEpochDay = todayEpochDay;
+            this.ages          = new short[todayEpochDay - Date.MIN_EPOCH_DAY + 1];
+
+            year  = Date.ofEpochDay(Date.MIN_EPOCH_DAY).getYear();
+            month = JANUARY;
+            day   = MIN_DAY;
+
+            for (int i = 0; i < ages.length; i++)
+            {
+                int age;
+                age = todayYear - year;
+
+                if (month > todayMonth ||
+                    month == todayMonth && day > todayDay)
+                {
+                    age--;
+                }
+                ages[i] = (short) age;
+
+                day++;
+                if (day > Date.getDaysInMonth(year, month))
+                {
+                    day = MIN_DAY;
+                    month++;
+                    if (month > DECEMBER)
+                    {
+                        month = JANUARY;
+                        year++;
+                    }
+                }
+            }
+        }
+    }
+}
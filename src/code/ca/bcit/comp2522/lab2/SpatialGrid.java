@@ -0,0 +1,556 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Indexes the positions of creatures in a rectangular arena with a uniform grid.
+ * <p>
+ * The arena is divided into square cells, and each creature is linked into the cell that holds
+ * its position. Nearest-enemy and k-nearest queries look at the attacker's own cell first and
+ * widen one ring of cells at a time, stopping as soon as no unvisited cell could hold anything
+ * closer. Radius queries only visit the cells that overlap the circle. With a cell size close to
+ * the typical attack range, each query touches a handful of cells no matter how large the
+ * population is.
+ * </p>
+ * <p>
+ * Creatures are referred to by the handle returned from {@link #add(Creature, float, float)}.
+ * Handles of removed creatures are reused.
+ * </p>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+public class SpatialGrid
+{
+    private static final int NONE             = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int GROWTH_FACTOR    = 2;
+    private static final int MIN_K            = 1;
+
+    private final float width;
+    private final float height;
+    private final float cellSize;
+    private final int   columns;
+    private final int   rows;
+    private final int[] cellHeads;
+
+    private Creature[] members;
+    private float[]    xs;
+    private float[]    ys;
+    private int[]      cells;
+    private int[]      previous;
+    private int[]      next;
+    private int        slotsUsed;
+    private int        freeHead;
+    private int        size;
+
+    /**
+     * Constructs an empty {@code SpatialGrid} covering an arena of the given size.
+     *
+     * @param width    the width of the arena, must be positive
+     * @param height   the height of the arena, must be positive
+     * @param cellSize the side length of each grid cell, must be positive
+     * @throws IllegalArgumentException if any dimension is not positive
+     */
+    public SpatialGrid(final float width,
+                       final float height,
+                       final float cellSize)
+    {
+        if (!(width > 0) || !(height > 0) || !(cellSize > 0))
+        {
+            throw new IllegalArgumentException("Arena width, height, and cell size must be positive");
+        }
+
+        this.width    = width;
+        this.height   = height;
+        this.cellSize = cellSize;
+
+        columns   = (int) Math.ceil(width / cellSize);
+        rows      = (int) Math.ceil(height / cellSize);
+        cellHeads = new int[columns * rows];
+        Arrays.fill(cellHeads, NONE);
+
+        members   = new Creature[DEFAULT_CAPACITY];
+        xs        = new float[DEFAULT_CAPACITY];
+        ys        = new float[DEFAULT_CAPACITY];
+        cells     = new int[DEFAULT_CAPACITY];
+        previous  = new int[DEFAULT_CAPACITY];
+        next      = new int[DEFAULT_CAPACITY];
+        slotsUsed = 0;
+        freeHead  = NONE;
+        size      = 0;
+    }
+
+    /**
+     * Places a creature in the arena.
+     *
+     * @param creature the creature to place, must not be null
+     * @param x        the creature's x position, within the arena
+     * @param y        the creature's y position, within the arena
+     * @return the handle of the placed creature
+     * @throws IllegalArgumentException if the creature is null or the position is outside the arena
+     */
+    public int add(final Creature creature,
+                   final float x,
+                   final float y)
+    {
+        final int handle;
+
+        if (creature == null)
+        {
+            throw new IllegalArgumentException("Creature cannot be null");
+        }
+        validatePosition(x, y);
+
+        if (freeHead != NONE)
+        {
+            handle   = freeHead;
+            freeHead = next[handle];
+        }
+        else
+        {
+            if (slotsUsed == members.length)
+            {
+                grow();
+            }
+            handle = slotsUsed;
+            slotsUsed++;
+        }
+
+        members[handle] = creature;
+        xs[handle]      = x;
+        ys[handle]      = y;
+        link(handle, cellOf(x, y));
+
+        size++;
+        return handle;
+    }
+
+    /**
+     * Moves a creature to a new position.
+     *
+     * @param handle the creature's handle
+     * @param x      the new x position, within the arena
+     * @param y      the new y position, within the arena
+     * @throws IllegalArgumentException if the handle is not in the grid or the position is outside the arena
+     */
+    public void move(final int handle,
+                     final float x,
+                     final float y)
+    {
+        final int cell;
+
+        checkHandle(handle);
+        validatePosition(x, y);
+
+        cell       = cellOf(x, y);
+        xs[handle] = x;
+        ys[handle] = y;
+
+        if (cell != cells[handle])
+        {
+            unlink(handle);
+            link(handle, cell);
+        }
+    }
+
+    /**
+     * Removes a creature from the arena, freeing its handle for reuse.
+     *
+     * @param handle the creature's handle
+     * @throws IllegalArgumentException if the handle is not in the grid
+     */
+    public void remove(final int handle)
+    {
+        checkHandle(handle);
+        unlink(handle);
+
+        members[handle] = null;
+        next[handle]    = freeHead;
+        freeHead        = handle;
+
+        size--;
+    }
+
+    /**
+     * Gets the creature behind a handle.
+     *
+     * @param handle the creature's handle
+     * @return the creature
+     * @throws IllegalArgumentException if the handle is not in the grid
+     */
+    public Creature get(final int handle)
+    {
+        checkHandle(handle);
+        return members[handle];
+    }
+
+    /**
+     * Gets the x position of the creature behind a handle.
+     *
+     * @param handle the creature's handle
+     * @return the x position
+     */
+    public float getX(final int handle)
+    {
+        checkHandle(handle);
+        return xs[handle];
+    }
+
+    /**
+     * Gets the y position of the creature behind a handle.
+     *
+     * @param handle the creature's handle
+     * @return the y position
+     */
+    public float getY(final int handle)
+    {
+        checkHandle(handle);
+        return ys[handle];
+    }
+
+    /**
+     * Gets the number of creatures in the arena.
+     *
+     * @return the number of placed creatures
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Finds the closest living creature of a different kind than the creature behind a handle.
+     *
+     * @param handle the attacker's handle
+     * @return the handle of the nearest enemy, or {@code -1} if there is none
+     * @throws IllegalArgumentException if the handle is not in the grid
+     */
+    public int nearestEnemy(final int handle)
+    {
+        final int[] found;
+
+        checkHandle(handle);
+        found = new int[MIN_K];
+
+        if (search(xs[handle], ys[handle], MIN_K, handle, members[handle], found) == 0)
+        {
+            return NONE;
+        }
+        return found[0];
+    }
+
+    /**
+     * Finds the creatures closest to a point, nearest first.
+     *
+     * @param x       the x position of the point
+     * @param y       the y position of the point
+     * @param k       the number of creatures to find, at least one
+     * @param handles the array receiving the handles found, at least {@code k} long
+     * @return the number of handles written, less than {@code k} only if the arena has fewer creatures
+     * @throws IllegalArgumentException if {@code k} is less than one or {@code handles} is too short
+     */
+    public int nearest(final float x,
+                       final float y,
+                       final int k,
+                       final int[] handles)
+    {
+        if (k < MIN_K || handles.length < k)
+        {
+            throw new IllegalArgumentException("k must be at least " + MIN_K + " and fit in the handles array");
+        }
+        return search(x, y, k, NONE, null, handles);
+    }
+
+    /**
+     * Collects every creature within a radius of a point.
+     *
+     * @param x      the x position of the centre
+     * @param y      the y position of the centre
+     * @param radius the radius, must not be negative
+     * @param found  the collection the creatures are added to
+     * @return the number of creatures added
+     * @throws IllegalArgumentException if the radius is negative
+     */
+    public int withinRadius(final float x,
+                            final float y,
+                            final float radius,
+                            final Collection<? super Creature> found)
+    {
+        final float radiusSquared;
+        final int   minColumn;
+        final int   maxColumn;
+        final int   minRow;
+        final int   maxRow;
+        int         count;
+
+        if (radius < 0)
+        {
+            throw new IllegalArgumentException("Radius must not be negative");
+        }
+
+        radiusSquared = radius * radius;
+        minColumn     = clampColumn(x - radius);
+        maxColumn     = clampColumn(x + radius);
+        minRow        = clampRow(y - radius);
+        maxRow        = clampRow(y + radius);
+        count         = 0;
+
+        for (int row = minRow; row <= maxRow; row++)
+        {
+            for (int column = minColumn; column <= maxColumn; column++)
+            {
+                for (int h = cellHeads[row * columns + column]; h != NONE; h = next[h])
+                {
+                    if (distanceSquared(h, x, y) <= radiusSquared)
+                    {
+                        found.add(members[h]);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds up to {@code k} creatures nearest a point by visiting rings of cells outward from the
+     * point's cell until no unvisited cell can hold anything closer than the {@code k}-th best.
+     *
+     * @param x       the x position of the point
+     * @param y       the y position of the point
+     * @param k       the number of creatures to find
+     * @param exclude a handle to skip, or {@code -1}
+     * @param enemyOf if not null, only living creatures of a different kind than this one count
+     * @param handles the array receiving the handles found, nearest first
+     * @return the number of handles written
+     */
+    private int search(final float x,
+                       final float y,
+                       final int k,
+                       final int exclude,
+                       final Creature enemyOf,
+                       final int[] handles)
+    {
+        final float[] distances;
+        final int     centreColumn;
+        final int     centreRow;
+        final int     maxRing;
+        int           found;
+
+        distances    = new float[k];
+        centreColumn = clampColumn(x);
+        centreRow    = clampRow(y);
+        maxRing      = Math.max(columns, rows);
+        found        = 0;
+
+        for (int ring = 0; ring <= maxRing; ring++)
+        {
+            final float ringDistance;
+            ringDistance = (ring - 1) * cellSize;
+
+            if (found == k &&
+                ring > 0 &&
+                ringDistance * ringDistance > distances[k - 1])
+            {
+                break;
+            }
+
+            for (int row = centreRow - ring; row <= centreRow + ring; row++)
+            {
+                if (row < 0 || row >= rows)
+                {
+                    continue;
+                }
+
+                for (int column = centreColumn - ring; column <= centreColumn + ring; column++)
+                {
+                    final boolean onRing;
+                    onRing = row == centreRow - ring || row == centreRow + ring ||
+                             column == centreColumn - ring || column == centreColumn + ring;
+
+                    if (!onRing || column < 0 || column >= columns)
+                    {
+                        continue;
+                    }
+
+                    for (int h = cellHeads[row * columns + column]; h != NONE; h = next[h])
+                    {
+                        final float distance;
+
+                        if (h == exclude ||
+                            enemyOf != null && (members[h].getKind() == enemyOf.getKind() ||
+                                                !members[h].isAlive()))
+                        {
+                            continue;
+                        }
+
+                        distance = distanceSquared(h, x, y);
+                        if (found < k || distance < distances[found - 1])
+                        {
+                            int position;
+                            position = found < k ? found++ : k - 1;
+
+                            while (position > 0 && distances[position - 1] > distance)
+                            {
+                                distances[position] = distances[position - 1];
+                                handles[position]   = handles[position - 1];
+                                position--;
+                            }
+                            distances[position] = distance;
+                            handles[position]   = h;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Computes the squared distance from the creature behind a handle to a point.
+     *
+     * @param handle the creature's handle
+     * @param x      the x position of the point
+     * @param y      the y position of the point
+     * @return the squared distance
+     */
+    private float distanceSquared(final int handle,
+                                  final float x,
+                                  final float y)
+    {
+        final float dx;
+        final float dy;
+
+        dx = xs[handle] - x;
+        dy = ys[handle] - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Links a handle at the front of a cell's list.
+     *
+     * @param handle the handle to link
+     * @param cell   the cell to link it into
+     */
+    private void link(final int handle,
+                      final int cell)
+    {
+        final int head;
+        head = cellHeads[cell];
+
+        cells[handle]    = cell;
+        previous[handle] = NONE;
+        next[handle]     = head;
+
+        if (head != NONE)
+        {
+            previous[head] = handle;
+        }
+        cellHeads[cell] = handle;
+    }
+
+    /**
+     * Unlinks a handle from its cell's list.
+     *
+     * @param handle the handle to unlink
+     */
+    private void unlink(final int handle)
+    {
+        if (previous[handle] == NONE)
+        {
+            cellHeads[cells[handle]] = next[handle];
+        }
+        else
+        {
+            next[previous[handle]] = next[handle];
+        }
+
+        if (next[handle] != NONE)
+        {
+            previous[next[handle]] = previous[handle];
+        }
+    }
+
+    /**
+     * Computes the cell that holds a position.
+     *
+     * @param x the x position
+     * @param y the y position
+     * @return the cell index
+     */
+    private int cellOf(final float x,
+                       final float y)
+    {
+        return clampRow(y) * columns + clampColumn(x);
+    }
+
+    /**
+     * Computes the grid column of an x position, clamped to the arena.
+     *
+     * @param x the x position
+     * @return the column
+     */
+    private int clampColumn(final float x)
+    {
+        return Math.min(Math.max((int) (x / cellSize), 0), columns - 1);
+    }
+
+    /**
+     * Computes the grid row of a y position, clamped to the arena.
+     *
+     * @param y the y position
+     * @return the row
+     */
+    private int clampRow(final float y)
+    {
+        return Math.min(Math.max((int) (y / cellSize), 0), rows - 1);
+    }
+
+    /**
+     * Validates that a position is inside the arena.
+     *
+     * @param x the x position
+     * @param y the y position
+     * @throws IllegalArgumentException if the position is outside the arena
+     */
+    private void validatePosition(final float x,
+                                  final float y)
+    {
+        if (!(x >= 0 && x <= width && y >= 0 && y <= height))
+        {
+            throw new IllegalArgumentException("Position (" + x + ", " + y + ") is outside the arena");
+        }
+    }
+
+    /**
+     * Validates that a handle refers to a creature in the grid.
+     *
+     * @param handle the handle to check
+     * @throws IllegalArgumentException if the handle is not in the grid
+     */
+    private void checkHandle(final int handle)
+    {
+        if (handle < 0 || handle >= slotsUsed || members[handle] == null)
+        {
+            throw new IllegalArgumentException("Handle " + handle + " is not in the grid");
+        }
+    }
+
+    /**
+     * Grows the per-creature arrays by {@link #GROWTH_FACTOR}.
+     */
+    private void grow()
+    {
+        final int newCapacity;
+        newCapacity = members.length * GROWTH_FACTOR;
+
+        members  = Arrays.copyOf(members, newCapacity);
+        xs       = Arrays.copyOf(xs, newCapacity);
+        ys       = Arrays.copyOf(ys, newCapacity);
+        cells    = Arrays.copyOf(cells, newCapacity);
+        previous = Arrays.copyOf(previous, newCapacity);
+        next     = Arrays.copyOf(next, newCapacity);
+    }
+}
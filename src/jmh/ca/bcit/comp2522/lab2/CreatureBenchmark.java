@@ -0,0 +1,340 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for the {@link Date}, {@link Creature}, combat, and bulk health operations.
+ * <p>
+ * Each workload is its own {@code @Benchmark} method, so the JIT compiler sees every one as a
+ * separate call site, and each result is passed to a {@link Blackhole} so the work cannot be
+ * discarded. Every benchmark runs in freshly forked JVMs after warming up. The bulk health
+ * benchmarks report their time per creature, so the per-object loop and the
+ * {@link HealthVectors} pass can be compared directly.
+ * </p>
+ * <p>
+ * Build and run with the {@code jmh} profile, adding the GC profiler to report the bytes
+ * allocated per operation:
+ * </p>
+ * <pre>
+ * mvn -Pjmh package
+ * java -jar target/benchmarks.jar CreatureBenchmark -prof gc
+ * </pre>
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CreatureBenchmark
+{
+    private static final int SWEEP_SIZE = 4096;
+
+    private static final int BIRTH_YEAR  = 1974;
+    private static final int BIRTH_MONTH = 1;
+    private static final int BIRTH_DAY   = 15;
+    private static final int DAYS_CYCLE  = 28;
+    private static final int HEALTH      = 95;
+    private static final int FIRE_POWER  = 80;
+    private static final int MANA        = 45;
+    private static final int RAGE        = 15;
+    private static final int LOW_RAGE    = 3;
+    private static final int DAMAGE      = 1;
+
+    private Date          date;
+    private Creature      creature;
+    private Dragon        dragon;
+    private Elf           elf;
+    private Orc           orc;
+    private Dragon        tiredDragon;
+    private Elf           tiredElf;
+    private Orc           calmOrc;
+    private StringBuilder text;
+    private Creature[]    population;
+    private int[]         health;
+    private long[]        aliveMask;
+    private int           day;
+
+    /**
+     * Creates the creatures and arrays the benchmarks work on.
+     */
+    @Setup
+    public void setUp()
+    {
+        date        = new Date(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY);
+        creature    = new Elf("Target", date, HEALTH, MANA);
+        dragon      = new Dragon("Smaug", date, HEALTH, FIRE_POWER);
+        elf         = new Elf("Legolas", date, HEALTH, MANA);
+        orc         = new Orc("Grommash", date, HEALTH, RAGE);
+        tiredDragon = new Dragon("Tired", date, HEALTH, Dragon.MIN_FIRE_POWER);
+        tiredElf    = new Elf("Tired", date, HEALTH, Elf.MIN_MANA);
+        calmOrc     = new Orc("Calm", date, HEALTH, LOW_RAGE);
+        text        = new StringBuilder();
+        population  = new Creature[SWEEP_SIZE];
+        health      = new int[SWEEP_SIZE];
+        aliveMask   = new long[SWEEP_SIZE / Long.SIZE];
+        day         = 0;
+
+        for (int i = 0; i < SWEEP_SIZE; i++)
+        {
+            population[i] = new Orc("Orc-" + i, date, HEALTH, RAGE);
+            health[i]     = HEALTH;
+        }
+    }
+
+    /**
+     * Constructs a new date.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void dateConstruction(final Blackhole blackhole)
+    {
+        blackhole.consume(new Date(BIRTH_YEAR, BIRTH_MONTH, nextDay()));
+    }
+
+    /**
+     * Looks up a shared date.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void dateOf(final Blackhole blackhole)
+    {
+        blackhole.consume(Date.of(BIRTH_YEAR, BIRTH_MONTH, nextDay()));
+    }
+
+    /**
+     * Gets the day of the week of a date.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void dateGetDayOfTheWeek(final Blackhole blackhole)
+    {
+        blackhole.consume(date.getDayOfTheWeek());
+    }
+
+    /**
+     * Formats a date.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void dateGetYYYYMMDD(final Blackhole blackhole)
+    {
+        blackhole.consume(date.getYYYYMMDD());
+    }
+
+    /**
+     * Looks up a shared date and formats it.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void dateGetYYYYMMDDShared(final Blackhole blackhole)
+    {
+        blackhole.consume(Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY).getYYYYMMDD());
+    }
+
+    /**
+     * Formats a date into a reused builder.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void dateAppendYYYYMMDD(final Blackhole blackhole)
+    {
+        text.setLength(0);
+        blackhole.consume(date.appendYYYYMMDD(text));
+    }
+
+    /**
+     * Gets the age of a creature.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void creatureGetAgeYears(final Blackhole blackhole)
+    {
+        blackhole.consume(creature.getAgeYears());
+    }
+
+    /**
+     * Damages and then heals a creature.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void creatureTakeDamageHeal(final Blackhole blackhole)
+    {
+        creature.takeDamage(DAMAGE);
+        creature.heal(Creature.MIN_HEAL_AMOUNT);
+        blackhole.consume(creature.getHealth());
+    }
+
+    /**
+     * Breathes fire and then restores the fire power spent and heals the target, so every call
+     * attacks a living creature.
+     *
+     * @param blackhole consumes the result
+     * @throws LowFirePowerException never, as the fire power is restored after every attack
+     */
+    @Benchmark
+    public void dragonBreatheFire(final Blackhole blackhole) throws LowFirePowerException
+    {
+        dragon.breatheFire(creature);
+        dragon.restoreFirePower(Dragon.FIRE_POWER_COST);
+        creature.heal(Creature.MIN_HEAL_AMOUNT);
+        blackhole.consume(dragon.getFirePower());
+    }
+
+    /**
+     * Breathes fire without enough fire power.
+     *
+     * @param blackhole consumes the exception
+     */
+    @Benchmark
+    public void dragonBreatheFireException(final Blackhole blackhole)
+    {
+        try
+        {
+            tiredDragon.breatheFire(creature);
+        }
+        catch (final LowFirePowerException e)
+        {
+            blackhole.consume(e);
+        }
+    }
+
+    /**
+     * Casts a spell and then restores the mana spent and heals the target, so every call
+     * attacks a living creature.
+     *
+     * @param blackhole consumes the result
+     * @throws LowManaException never, as the mana is restored after every spell
+     */
+    @Benchmark
+    public void elfCastSpell(final Blackhole blackhole) throws LowManaException
+    {
+        elf.castSpell(creature);
+        elf.restoreMana(Elf.MANA_COST);
+        creature.heal(Creature.MIN_HEAL_AMOUNT);
+        blackhole.consume(elf.getMana());
+    }
+
+    /**
+     * Casts a spell without enough mana.
+     *
+     * @param blackhole consumes the exception
+     */
+    @Benchmark
+    public void elfCastSpellException(final Blackhole blackhole)
+    {
+        try
+        {
+            tiredElf.castSpell(creature);
+        }
+        catch (final LowManaException e)
+        {
+            blackhole.consume(e);
+        }
+    }
+
+    /**
+     * Goes berserk and then heals the target, so every call attacks a living creature.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void orcBerserk(final Blackhole blackhole)
+    {
+        orc.berserk(creature);
+        creature.heal(Creature.MIN_HEAL_AMOUNT);
+        blackhole.consume(orc.getRage());
+    }
+
+    /**
+     * Goes berserk without enough rage.
+     *
+     * @param blackhole consumes the exception
+     */
+    @Benchmark
+    public void orcBerserkException(final Blackhole blackhole)
+    {
+        try
+        {
+            calmOrc.berserk(creature);
+        }
+        catch (final LowRageException e)
+        {
+            blackhole.consume(e);
+        }
+    }
+
+    /**
+     * Damages, heals, and checks every creature of a population one object at a time.
+     *
+     * @param blackhole consumes the number of living creatures
+     */
+    @Benchmark
+    @OperationsPerInvocation(SWEEP_SIZE)
+    public void bulkCreatureLoop(final Blackhole blackhole)
+    {
+        int alive;
+        alive = 0;
+
+        for (final Creature member : population)
+        {
+            member.takeDamage(DAMAGE);
+            member.heal(Creature.MIN_HEAL_AMOUNT);
+
+            if (member.isAlive())
+            {
+                alive++;
+            }
+        }
+        blackhole.consume(alive);
+    }
+
+    /**
+     * Damages, heals, and checks every health value of a population in bulk.
+     *
+     * @param blackhole consumes the number of living creatures
+     */
+    @Benchmark
+    @OperationsPerInvocation(SWEEP_SIZE)
+    public void bulkHealthVectors(final Blackhole blackhole)
+    {
+        HealthVectors.applyDamage(health, SWEEP_SIZE, DAMAGE);
+        HealthVectors.applyHealing(health, SWEEP_SIZE, Creature.MIN_HEAL_AMOUNT);
+        blackhole.consume(HealthVectors.aliveMask(health, SWEEP_SIZE, aliveMask));
+    }
+
+    /**
+     * Gets the next day of the month to construct, cycling through the month.
+     *
+     * @return the day
+     */
+    private int nextDay()
+    {
+        day = (day + 1) % DAYS_CYCLE;
+        return day + 1;
+    }
+}
@@ -0,0 +1,109 @@
+package ca.bcit.comp2522.lab2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link AsyncConsoleCombatLogger}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+class AsyncConsoleCombatLoggerTest
+{
+    private static final int  ROUNDS           = 20;
+    private static final int  EVENTS           = 100;
+    private static final int  CAPACITY         = 128;
+    private static final long PRINT_PARK_NANOS = 50_000L;
+
+    private static final int BIRTH_YEAR  = 1924;
+    private static final int BIRTH_MONTH = 3;
+    private static final int BIRTH_DAY   = 22;
+    private static final int HEALTH      = 85;
+    private static final int MANA        = 45;
+    private static final int DAMAGE      = 10;
+
+    /**
+     * Logs a batch of events, flushes, and checks that every one of them was written. The stream
+     * is slow to print each line, so a flush that does not wait for the last line to be printed
+     * is caught.
+     */
+    @Test
+    void flushWritesEveryLoggedEvent()
+    {
+        final ByteArrayOutputStream sink;
+        final Date                  birth;
+        final Elf                   elf;
+        final Elf                   target;
+
+        sink   = new ByteArrayOutputStream();
+        birth  = new Date(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY);
+        elf    = new Elf("Legolas", birth, HEALTH, MANA);
+        target = new Elf("Target", birth, HEALTH, MANA);
+
+        try (final AsyncConsoleCombatLogger logger =
+                 new AsyncConsoleCombatLogger(new SlowPrintStream(sink), CAPACITY))
+        {
+            for (int round = 1; round <= ROUNDS; round++)
+            {
+                for (int i = 0; i < EVENTS; i++)
+                {
+                    logger.onAttack(elf, CombatEngine.ACTION_CAST_SPELL, target, DAMAGE, MANA, false);
+                }
+                logger.flush();
+
+                assertEquals(round * EVENTS, countLines(sink), "lines written after round " + round);
+            }
+            assertEquals(0L, logger.getDroppedEvents());
+        }
+    }
+
+    /**
+     * Counts the lines written to a sink so far.
+     *
+     * @param sink the sink
+     * @return the number of lines
+     */
+    private static int countLines(final ByteArrayOutputStream sink)
+    {
+        final String text;
+        text = sink.toString(StandardCharsets.UTF_8);
+
+        return text.isEmpty() ? 0 : text.split(System.lineSeparator()).length;
+    }
+
+    /**
+     * A stream that pauses before printing each line, before taking its lock, to widen the
+     * window between the logger taking an event and the line reaching the stream.
+     */
+    private static final class SlowPrintStream extends PrintStream
+    {
+        /**
+         * Constructs a {@code SlowPrintStream} writing to a sink.
+         *
+         * @param sink the sink
+         */
+        private SlowPrintStream(final ByteArrayOutputStream sink)
+        {
+            super(sink, false, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Pauses, then prints the value.
+         *
+         * @param value the value to print
+         */
+        @Override
+        public void print(final Object value)
+        {
+            LockSupport.parkNanos(PRINT_PARK_NANOS);
+            super.print(value);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ca.bcit.comp2522.lab2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link CombatEngine}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+class CombatEngineTest
+{
+    private static final int  BIRTH_YEAR   = 1960;
+    private static final int  BIRTH_MONTH  = 2;
+    private static final int  BIRTH_DAY    = 14;
+    private static final int  HEALTH       = 100;
+    private static final int  FIRE_POWER   = 100;
+    private static final int  MANA         = 50;
+    private static final int  MISSING      = 5;
+    private static final long OLD_FAILURES = 0b101L;
+
+    /**
+     * A batch whose last attack names a creature outside the store is rejected before the
+     * earlier attacks are applied, leaving the store and the failure bitmap as they were.
+     */
+    @Test
+    void badIndexRejectsWholeBatch()
+    {
+        final CreatureStore store;
+        final Date          birth;
+        final long[]        failures;
+
+        store    = new CreatureStore();
+        birth    = Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY);
+        failures = new long[] {OLD_FAILURES};
+
+        store.add(new Dragon("Smaug", birth, HEALTH, FIRE_POWER));
+        store.add(new Elf("Legolas", birth, HEALTH, MANA));
+
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> CombatEngine.resolveBatch(store,
+                                                     new int[] {0, 1, 0},
+                                                     new byte[] {CombatEngine.ACTION_BREATHE_FIRE,
+                                                                 CombatEngine.ACTION_CAST_SPELL,
+                                                                 CombatEngine.ACTION_BREATHE_FIRE},
+                                                     new int[] {1, 0, MISSING},
+                                                     3,
+                                                     failures));
+
+        assertEquals(HEALTH, store.getHealth(0));
+        assertEquals(FIRE_POWER, store.getResource(0));
+        assertEquals(HEALTH, store.getHealth(1));
+        assertEquals(MANA, store.getResource(1));
+        assertEquals(OLD_FAILURES, failures[0]);
+    }
+}
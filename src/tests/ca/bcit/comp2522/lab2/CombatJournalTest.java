@@ -0,0 +1,319 @@
+package ca.bcit.comp2522.lab2;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link CombatJournal}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+class CombatJournalTest
+{
+    private static final int ROUNDS        = 500;
+    private static final int BIRTH_YEAR    = 1950;
+    private static final int BIRTH_MONTH   = 4;
+    private static final int BIRTH_DAY     = 18;
+    private static final int HEALTH        = 100;
+    private static final int FIRE_POWER    = 100;
+    private static final int MANA          = 50;
+    private static final int RAGE          = 10;
+    private static final int RESTORE       = 7;
+    private static final int THREADS       = 8;
+    private static final int TARGETS       = 4;
+    private static final int KINDS         = 3;
+    private static final int SHARED_ROUNDS = 20_000;
+
+    /**
+     * Three attached creatures attack and heal each other from three threads at once. Replaying
+     * the journal into a store holding their starting state ends with the state the creatures
+     * ended with, so every change was recorded in the order it was made.
+     *
+     * @param directory a temporary directory for the journal
+     * @throws Exception if the journal cannot be written or read, or a thread is interrupted
+     */
+    @Test
+    void replayRebuildsAttachedCreatures(@TempDir final Path directory) throws Exception
+    {
+        final Path          path;
+        final Date          birth;
+        final Dragon        dragon;
+        final Elf           elf;
+        final Orc           orc;
+        final CreatureStore store;
+        final Thread[]      threads;
+
+        path   = directory.resolve("combat.journal");
+        birth  = Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY);
+        dragon = new Dragon("Smaug", birth, HEALTH, FIRE_POWER);
+        elf    = new Elf("Legolas", birth, HEALTH, MANA);
+        orc    = new Orc("Azog", birth, HEALTH, RAGE);
+        store  = new CreatureStore();
+
+        try (final CombatJournal journal = new CombatJournal(path, CombatJournal.SyncPolicy.NEVER))
+        {
+            journal.attach(dragon, store.add(dragon));
+            journal.attach(elf, store.add(elf));
+            journal.attach(orc, store.add(orc));
+
+            threads = new Thread[] {
+                new Thread(() ->
+                {
+                    for (int i = 0; i < ROUNDS; i++)
+                    {
+                        dragon.tryBreatheFire(List.of(elf, orc));
+                        dragon.restoreFirePower(RESTORE);
+                        dragon.heal(Creature.MIN_HEAL_AMOUNT);
+                    }
+                }),
+                new Thread(() ->
+                {
+                    for (int i = 0; i < ROUNDS; i++)
+                    {
+                        elf.tryCastSpell(dragon);
+                        elf.restoreMana(RESTORE);
+                        elf.heal(Creature.MIN_HEAL_AMOUNT);
+                    }
+                }),
+                new Thread(() ->
+                {
+                    for (int i = 0; i < ROUNDS; i++)
+                    {
+                        orc.tryBerserk(dragon);
+                        orc.takeDamage(RESTORE);
+                        orc.heal(Creature.MIN_HEAL_AMOUNT);
+                    }
+                })
+            };
+
+            for (final Thread thread : threads)
+            {
+                thread.start();
+            }
+            for (final Thread thread : threads)
+            {
+                thread.join();
+            }
+        }
+
+        CombatJournal.replay(path, store);
+
+        assertEquals(dragon.getHealth(), store.getHealth(0));
+        assertEquals(dragon.getFirePower(), store.getResource(0));
+        assertEquals(elf.getHealth(), store.getHealth(1));
+        assertEquals(elf.getMana(), store.getResource(1));
+        assertEquals(orc.getHealth(), store.getHealth(2));
+        assertEquals(orc.getRage(), store.getResource(2));
+    }
+
+    /**
+     * Many threads, each with its own attacker, attack and heal a shared group of journaled
+     * targets with single and area attacks. Replaying the journal rebuilds every attacker and
+     * target, so each creature's records kept their order without one lock for the journal.
+     *
+     * @param directory a temporary directory for the journal
+     * @throws Exception if the journal cannot be written or read, or a thread is interrupted
+     */
+    @Test
+    void replayAfterManyThreadsAttackSharedTargets(@TempDir final Path directory) throws Exception
+    {
+        final Path          path;
+        final Date          birth;
+        final Creature[]    attackers;
+        final List<Orc>     targets;
+        final CreatureStore store;
+        final Thread[]      threads;
+        final CyclicBarrier start;
+
+        path      = directory.resolve("combat.journal");
+        birth     = Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY);
+        attackers = new Creature[THREADS];
+        targets   = new ArrayList<>();
+        store     = new CreatureStore();
+        threads   = new Thread[THREADS];
+        start     = new CyclicBarrier(THREADS);
+
+        for (int i = 0; i < TARGETS; i++)
+        {
+            targets.add(new Orc("Target-" + i, birth, HEALTH, RAGE));
+        }
+
+        for (int i = 0; i < THREADS; i++)
+        {
+            switch (i % KINDS)
+            {
+                case 0:
+                    attackers[i] = new Dragon("Dragon-" + i, birth, HEALTH, FIRE_POWER);
+                    break;
+                case 1:
+                    attackers[i] = new Elf("Elf-" + i, birth, HEALTH, MANA);
+                    break;
+                default:
+                    attackers[i] = new Orc("Orc-" + i, birth, HEALTH, RAGE);
+                    break;
+            }
+        }
+
+        try (final CombatJournal journal = new CombatJournal(path, CombatJournal.SyncPolicy.NEVER))
+        {
+            for (final Orc target : targets)
+            {
+                journal.attach(target, store.add(target));
+            }
+            for (final Creature attacker : attackers)
+            {
+                journal.attach(attacker, store.add(attacker));
+            }
+
+            for (int t = 0; t < THREADS; t++)
+            {
+                final Creature attacker;
+                attacker = attackers[t];
+
+                threads[t] = new Thread(() ->
+                {
+                    awaitQuietly(start);
+
+                    for (int i = 0; i < SHARED_ROUNDS; i++)
+                    {
+                        final Orc target;
+                        target = targets.get(i % TARGETS);
+
+                        attack(attacker, target, targets, i);
+                        target.heal(Creature.MIN_HEAL_AMOUNT);
+                        target.tryBerserk(attacker);
+                    }
+                });
+            }
+
+            for (final Thread thread : threads)
+            {
+                thread.start();
+            }
+            for (final Thread thread : threads)
+            {
+                thread.join();
+            }
+        }
+
+        CombatJournal.replay(path, store);
+
+        for (int i = 0; i < store.size(); i++)
+        {
+            final Creature creature;
+            creature = i < TARGETS ? targets.get(i) : attackers[i - TARGETS];
+
+            assertEquals(creature.getHealth(), store.getHealth(i), creature.getName());
+            assertEquals(creature.getResource(), store.getResource(i), creature.getName());
+        }
+    }
+
+    /**
+     * A creature cannot have two journals attached, and a detached creature records nothing.
+     *
+     * @param directory a temporary directory for the journal
+     * @throws IOException if the journal cannot be opened
+     */
+    @Test
+    void attachOnceAndDetach(@TempDir final Path directory) throws IOException
+    {
+        final Elf elf;
+        elf = new Elf("Legolas", Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY), HEALTH, MANA);
+
+        try (final CombatJournal journal = new CombatJournal(directory.resolve("combat.journal"),
+                                                             CombatJournal.SyncPolicy.NEVER))
+        {
+            journal.attach(elf, 0);
+            assertThrows(IllegalArgumentException.class, () -> journal.attach(elf, 1));
+
+            elf.takeDamage(RESTORE);
+            journal.detach(elf);
+            elf.takeDamage(RESTORE);
+
+            assertEquals(1L, journal.getRecordsWritten());
+        }
+    }
+
+    /**
+     * Waits for every thread to reach a barrier, so that they all start attacking together.
+     *
+     * @param barrier the barrier
+     * @throws IllegalStateException if the wait is interrupted or the barrier is broken
+     */
+    private static void awaitQuietly(final CyclicBarrier barrier)
+    {
+        try
+        {
+            barrier.await();
+        }
+        catch (final InterruptedException | BrokenBarrierException e)
+        {
+            throw new IllegalStateException("Threads could not start together", e);
+        }
+    }
+
+    /**
+     * Makes one attack, alternating between a single target and the whole group, and restores
+     * the attacker's fire power or mana afterwards.
+     *
+     * @param attacker the attacker
+     * @param target   the single target
+     * @param targets  the whole group
+     * @param round    the round, choosing the kind of attack
+     */
+    private static void attack(final Creature attacker,
+                               final Orc target,
+                               final List<Orc> targets,
+                               final int round)
+    {
+        final boolean area;
+        area = round % 2 == 0;
+
+        if (attacker instanceof Dragon dragon)
+        {
+            if (area)
+            {
+                dragon.tryBreatheFire(targets);
+            }
+            else
+            {
+                dragon.tryBreatheFire(target);
+            }
+            dragon.restoreFirePower(RESTORE);
+        }
+        else if (attacker instanceof Elf elf)
+        {
+            if (area)
+            {
+                elf.tryCastSpell(targets);
+            }
+            else
+            {
+                elf.tryCastSpell(target);
+            }
+            elf.restoreMana(RESTORE);
+        }
+        else if (attacker instanceof Orc orc)
+        {
+            if (area)
+            {
+                orc.tryBerserk(targets);
+            }
+            else
+            {
+                orc.tryBerserk(target);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ca.bcit.comp2522.lab2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link CreatureArena}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+class CreatureArenaTest
+{
+    private static final int CAPACITY    = 64;
+    private static final int CHURN       = 100_000;
+    private static final int BIRTH_YEAR  = 1990;
+    private static final int BIRTH_MONTH = 6;
+    private static final int BIRTH_DAY   = 30;
+    private static final int HEALTH      = 80;
+    private static final int MANA        = 40;
+
+    /**
+     * A name shared by several records stays readable until the last of them is released, and
+     * can be used again afterwards.
+     */
+    @Test
+    void sharedNameOutlivesEarlierReleases()
+    {
+        final CreatureArena arena;
+        final int           first;
+        final int           second;
+        final int           third;
+
+        arena  = new CreatureArena(CAPACITY);
+        first  = allocate(arena, "Legolas");
+        second = allocate(arena, "Legolas");
+
+        arena.release(first);
+        assertEquals("Legolas", arena.getName(second));
+
+        arena.release(second);
+        third = allocate(arena, "Legolas");
+        assertEquals("Legolas", arena.getName(third));
+    }
+
+    /**
+     * A small arena churns through many more distinct names than it can hold at once, and
+     * every live record keeps the right name while names are dropped and their ids reused.
+     */
+    @Test
+    void churnKeepsEveryLiveName()
+    {
+        final CreatureArena arena;
+        final int[]         handles;
+        final String[]      names;
+
+        arena   = new CreatureArena(CAPACITY);
+        handles = new int[CAPACITY];
+        names   = new String[CAPACITY];
+
+        for (int i = 0; i < CHURN; i++)
+        {
+            final int slot;
+            slot = i % CAPACITY;
+
+            if (names[slot] != null)
+            {
+                arena.release(handles[slot]);
+            }
+            names[slot]   = "Elf-" + i;
+            handles[slot] = allocate(arena, names[slot]);
+        }
+
+        for (int slot = 0; slot < CAPACITY; slot++)
+        {
+            assertEquals(names[slot], arena.getName(handles[slot]));
+        }
+        assertEquals(CAPACITY, arena.size());
+    }
+
+    /**
+     * Allocates an elf with a name.
+     *
+     * @param arena the arena
+     * @param name  the name
+     * @return the elf's handle
+     */
+    private static int allocate(final CreatureArena arena,
+                                final String name)
+    {
+        return arena.allocate(CreatureKind.ELF_CODE,
+                              name,
+                              Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY),
+                              HEALTH,
+                              MANA);
+    }
+}
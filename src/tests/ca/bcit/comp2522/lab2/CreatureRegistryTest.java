@@ -0,0 +1,94 @@
+package ca.bcit.comp2522.lab2;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link CreatureRegistry}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+class CreatureRegistryTest
+{
+    private static final int COUNT       = 1000;
+    private static final int BIRTH_YEAR  = 1999;
+    private static final int BIRTH_MONTH = 7;
+    private static final int BIRTH_DAY   = 10;
+    private static final int HEALTH      = 90;
+    private static final int RAGE        = 15;
+
+    /**
+     * Registers enough creatures to grow the name table several times, removes them all, and
+     * registers them again, checking that every name is found exactly while the ids are reused.
+     */
+    @Test
+    void removeAndRegisterAgainAfterGrowing()
+    {
+        final CreatureRegistry registry;
+        final Date             birth;
+
+        registry = new CreatureRegistry();
+        birth    = Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY);
+
+        for (int i = 0; i < COUNT; i++)
+        {
+            registry.register(new Orc("Orc-" + i, birth, HEALTH, RAGE));
+        }
+
+        for (int i = 0; i < COUNT; i++)
+        {
+            assertTrue(registry.remove("Orc-" + i));
+            assertNull(registry.get("Orc-" + i));
+        }
+        assertEquals(0, registry.size());
+
+        for (int i = 0; i < COUNT; i++)
+        {
+            final Orc orc;
+            final int id;
+
+            orc = new Orc("Orc-" + i, birth, HEALTH, RAGE);
+            id  = registry.register(orc);
+
+            assertSame(orc, registry.get(id));
+            assertSame(orc, registry.get("Orc-" + i));
+        }
+
+        assertEquals(COUNT, registry.size());
+        assertEquals(COUNT, registry.countAlive());
+        assertFalse(registry.remove("Missing"));
+    }
+
+    /**
+     * A health change reported just after its creature was removed, as when a damage on another
+     * thread races the removal, leaves no trace in the counts or bits.
+     */
+    @Test
+    void lateHealthChangeAfterRemoveIsIgnored()
+    {
+        final CreatureRegistry registry;
+        final Orc              orc;
+        final HealthIndex      index;
+        final int              id;
+
+        registry = new CreatureRegistry();
+        orc      = new Orc("Straggler", Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY), HEALTH, RAGE);
+        id       = registry.register(orc);
+        index    = orc.healthIndex;
+
+        assertTrue(registry.remove(id));
+        index.onHealthChanged(orc, id, Creature.MIN_HEALTH, HEALTH);
+
+        assertEquals(0, registry.countAlive());
+        assertEquals(0, registry.countAlive(CreatureKind.ORC));
+        assertEquals(0, registry.collectBelowHealth(Creature.MAX_HEALTH + 1, new ArrayList<>()));
+    }
+}
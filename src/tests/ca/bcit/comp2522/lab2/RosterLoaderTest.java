@@ -0,0 +1,127 @@
+package ca.bcit.comp2522.lab2;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link RosterLoader}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+class RosterLoaderTest
+{
+    private static final String ROW_START = "{\"kind\":\"elf\",\"name\":\"";
+    private static final String ROW_END   = "\",\"birthDate\":\"1980-05-06\",\"health\":100,\"resource\":45}";
+
+    /**
+     * JSON escapes in a name are decoded, including a surrogate pair.
+     *
+     * @throws IOException if the roster cannot be read
+     */
+    @Test
+    void jsonNameEscapesAreDecoded() throws IOException
+    {
+        final CreatureStore store;
+        final List<String>  reasons;
+
+        store   = new CreatureStore();
+        reasons = new ArrayList<>();
+
+        load(RosterLoader.Format.JSON_LINES,
+             ROW_START + "Fran\\u00e7ois" + ROW_END + "\n" +
+             ROW_START + "Tab\\tQuote\\\"Slash\\/Back\\\\" + ROW_END + "\n" +
+             ROW_START + "Smile\\uD83D\\uDE00" + ROW_END + "\n",
+             store,
+             reasons);
+
+        assertEquals(List.of(), reasons);
+        assertEquals("François", store.getName(0));
+        assertEquals("Tab\tQuote\"Slash/Back\\", store.getName(1));
+        assertEquals("Smile😀", store.getName(2));
+    }
+
+    /**
+     * Unknown, unfinished, and unpaired escapes reject their rows with the escape's column.
+     *
+     * @throws IOException if the roster cannot be read
+     */
+    @Test
+    void badJsonEscapesRejectTheirRows() throws IOException
+    {
+        final CreatureStore store;
+        final List<String>  reasons;
+
+        store   = new CreatureStore();
+        reasons = new ArrayList<>();
+
+        load(RosterLoader.Format.JSON_LINES,
+             ROW_START + "Bad\\q" + ROW_END + "\n" +
+             ROW_START + "Short\\u00e" + ROW_END + "\n" +
+             ROW_START + "Alone\\uD83D" + ROW_END + "\n" +
+             "{\"kind\":\"elf\",\"name\":\"End\\\n",
+             store,
+             reasons);
+
+        assertEquals(0, store.size());
+        assertEquals(4, reasons.size());
+        for (final String reason : reasons)
+        {
+            assertTrue(reason.contains("column"), reason);
+        }
+    }
+
+    /**
+     * Digits from other scripts are not read as numbers.
+     *
+     * @throws IOException if the roster cannot be read
+     */
+    @Test
+    void onlyAsciiDigitsAreNumbers() throws IOException
+    {
+        final CreatureStore store;
+        final List<String>  reasons;
+
+        store   = new CreatureStore();
+        reasons = new ArrayList<>();
+
+        load(RosterLoader.Format.CSV,
+             "elf,Legolas,1980-05-06,٣٠,45\n" +
+             "elf,Legolas,1980-05-06,90,３\n" +
+             "elf,Legolas,１980-05-06,90,45\n" +
+             "elf,Legolas,1980-05-06,90,45\n",
+             store,
+             reasons);
+
+        assertEquals(3, reasons.size());
+        assertEquals(1, store.size());
+        assertEquals(90, store.getHealth(0));
+    }
+
+    /**
+     * Loads a roster from text, collecting the reasons rows were rejected.
+     *
+     * @param format  the roster's format
+     * @param text    the roster
+     * @param store   the store to load into
+     * @param reasons the list receiving the reasons
+     * @throws IOException if the roster cannot be read
+     */
+    private static void load(final RosterLoader.Format format,
+                             final String text,
+                             final CreatureStore store,
+                             final List<String> reasons) throws IOException
+    {
+        final RosterLoader loader;
+        loader = new RosterLoader(format, (lineNumber, line, reason) -> reasons.add(reason));
+
+        loader.load(new StringReader(text), store);
+    }
+}
@@ -0,0 +1,79 @@
+package ca.bcit.comp2522.lab2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link SimulationClock}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+class SimulationClockTest
+{
+    private static final int TODAY_YEAR    = 2025;
+    private static final int TODAY_MONTH   = 9;
+    private static final int TODAY_DAY     = 24;
+    private static final int EARLIER_DAY   = 1;
+    private static final int HEALTH        = 85;
+    private static final int MANA          = 45;
+    private static final int DAYS_PER_YEAR = 365;
+
+    private SimulationClock previousClock;
+    private SimulationClock clock;
+
+    /**
+     * Installs a fresh clock for the test, remembering the one it replaces.
+     */
+    @BeforeEach
+    void installClock()
+    {
+        previousClock = Creature.getClock();
+        clock         = new SimulationClock(Date.of(TODAY_YEAR, TODAY_MONTH, TODAY_DAY));
+        Creature.setClock(clock);
+    }
+
+    /**
+     * Puts back the clock that was installed before the test.
+     */
+    @AfterEach
+    void restoreClock()
+    {
+        Creature.setClock(previousClock);
+    }
+
+    /**
+     * Moving the clock back is rejected, so a creature born today still has a valid age.
+     */
+    @Test
+    void setTodayRejectsMovingBack()
+    {
+        final Elf elf;
+        elf = new Elf("Newborn", Date.of(TODAY_YEAR, TODAY_MONTH, TODAY_DAY), HEALTH, MANA);
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> clock.setToday(Date.of(TODAY_YEAR, TODAY_MONTH, EARLIER_DAY)));
+
+        assertEquals(Date.of(TODAY_YEAR, TODAY_MONTH, TODAY_DAY).toEpochDay(), clock.getTodayEpochDay());
+        assertEquals(0, elf.getAgeYears());
+    }
+
+    /**
+     * Moving the clock forward, or setting it to the current day, is allowed and ages follow.
+     */
+    @Test
+    void setTodayAllowsMovingForward()
+    {
+        final Elf elf;
+        elf = new Elf("Newborn", Date.of(TODAY_YEAR, TODAY_MONTH, TODAY_DAY), HEALTH, MANA);
+
+        clock.setToday(Date.of(TODAY_YEAR, TODAY_MONTH, TODAY_DAY));
+        clock.advanceDays(DAYS_PER_YEAR);
+
+        assertEquals(1, elf.getAgeYears());
+    }
+}
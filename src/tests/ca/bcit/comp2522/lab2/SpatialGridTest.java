@@ -0,0 +1,78 @@
+package ca.bcit.comp2522.lab2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link SpatialGrid}.
+ *
+ * @author Ryan Fiset, Larry Lin
+ * @version 1.0
+ */
+class SpatialGridTest
+{
+    private static final float SIDE        = 100.0f;
+    private static final float CELL_SIZE   = 10.0f;
+    private static final float RADIUS      = 20.0f;
+    private static final int   BIRTH_YEAR  = 1970;
+    private static final int   BIRTH_MONTH = 1;
+    private static final int   BIRTH_DAY   = 1;
+    private static final int   HEALTH      = 100;
+    private static final int   FIRE_POWER  = 100;
+    private static final int   MANA        = 50;
+    private static final int   RAGE        = 10;
+
+    /**
+     * The nearest enemy is the closest living creature of another kind; a dead creature
+     * standing closer is passed over.
+     */
+    @Test
+    void nearestEnemySkipsDeadCreatures()
+    {
+        final SpatialGrid arena;
+        final Date        birth;
+        final Orc         corpse;
+        final int         dragon;
+        final int         elf;
+
+        arena  = new SpatialGrid(SIDE, SIDE, CELL_SIZE);
+        birth  = Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY);
+        corpse = new Orc("Corpse", birth, HEALTH, RAGE);
+
+        corpse.takeDamage(HEALTH);
+
+        dragon = arena.add(new Dragon("Smaug", birth, HEALTH, FIRE_POWER), 0.0f, 0.0f);
+        arena.add(corpse, 1.0f, 1.0f);
+        arena.add(new Dragon("Other", birth, HEALTH, FIRE_POWER), 2.0f, 2.0f);
+        elf = arena.add(new Elf("Legolas", birth, HEALTH, MANA), 5.0f, 5.0f);
+
+        assertEquals(elf, arena.nearestEnemy(dragon));
+    }
+
+    /**
+     * An area breath over only dead creatures hits nothing and spends no fire power.
+     *
+     * @throws LowFirePowerException if the dragon cannot breathe fire
+     */
+    @Test
+    void breatheFireOverCorpsesSpendsNothing() throws LowFirePowerException
+    {
+        final SpatialGrid arena;
+        final Date        birth;
+        final Dragon      dragon;
+        final Elf         corpse;
+
+        arena  = new SpatialGrid(SIDE, SIDE, CELL_SIZE);
+        birth  = Date.of(BIRTH_YEAR, BIRTH_MONTH, BIRTH_DAY);
+        dragon = new Dragon("Smaug", birth, HEALTH, FIRE_POWER);
+        corpse = new Elf("Corpse", birth, HEALTH, MANA);
+
+        corpse.takeDamage(HEALTH);
+        arena.add(dragon, 0.0f, 0.0f);
+        arena.add(corpse, 1.0f, 1.0f);
+
+        assertEquals(0, dragon.breatheFire(arena, 0.0f, 0.0f, RADIUS));
+        assertEquals(FIRE_POWER, dragon.getFirePower());
+    }
+}